@@ -0,0 +1,66 @@
+package com.computerwhz;
+
+import java.util.*;
+
+/** Realistic request and response data shared by the benchmarks. */
+final class BenchmarkFixtures {
+
+    static final String SHORT_TEXT = "thanks for sharing, this was really helpful!";
+
+    /** ~2.5 KB forum post with quotes, punctuation and non-ASCII characters. */
+    static final String LONG_TEXT;
+    static {
+        StringBuilder sb = new StringBuilder();
+        String[] sentences = {
+                "I honestly don't understand why people keep posting \"facts\" without any sources. ",
+                "Ce n'est pas la première fois que ça arrive ici. ",
+                "You're an idiot if you believe everything you read online. ",
+                "Anyway, here's the link: <https://example.com/thread?id=42&page=3>. ",
+                "Thanks to the mods for cleaning this up 🙏. "};
+        for (int i = 0; sb.length() < 2500; i++) sb.append(sentences[i % sentences.length]);
+        LONG_TEXT = sb.toString();
+    }
+
+    static final List<Attribute> ALL_ATTRIBUTES = Arrays.asList(Attribute.values());
+
+    static final List<String> CONTEXT = Arrays.asList(
+            "What do you all think about the new moderation policy?",
+            "I think it's a step in the right direction.");
+
+    private BenchmarkFixtures() {}
+
+    static String text(String size) {
+        return "long".equals(size) ? LONG_TEXT : SHORT_TEXT;
+    }
+
+    /**
+     * Response body in the shape returned by comments:analyze for every attribute in {@code attributes}.
+     *
+     * @param spansPerAttribute spanScores entries per attribute (0 = span annotations off)
+     */
+    static String response(List<Attribute> attributes, int textLength, int spansPerAttribute) {
+        StringBuilder sb = new StringBuilder("{\n  \"attributeScores\": {\n");
+        Random rnd = new Random(42);
+        for (int a = 0; a < attributes.size(); a++) {
+            double summary = rnd.nextDouble();
+            sb.append("    \"").append(attributes.get(a).name()).append("\": {\n");
+            if (spansPerAttribute > 0) {
+                sb.append("      \"spanScores\": [\n");
+                int step = Math.max(1, textLength / spansPerAttribute);
+                for (int s = 0; s < spansPerAttribute; s++) {
+                    int begin = s * step;
+                    int end = (s == spansPerAttribute - 1) ? textLength : begin + step;
+                    sb.append("        {\"begin\": ").append(begin).append(", \"end\": ").append(end)
+                            .append(", \"score\": {\"value\": ").append(rnd.nextDouble())
+                            .append(", \"type\": \"PROBABILITY\"}}")
+                            .append(s < spansPerAttribute - 1 ? ",\n" : "\n");
+                }
+                sb.append("      ],\n");
+            }
+            sb.append("      \"summaryScore\": {\"value\": ").append(summary).append(", \"type\": \"PROBABILITY\"}\n");
+            sb.append("    }").append(a < attributes.size() - 1 ? ",\n" : "\n");
+        }
+        sb.append("  },\n  \"languages\": [\"en\"],\n  \"detectedLanguages\": [\"en\"]\n}\n");
+        return sb.toString();
+    }
+}
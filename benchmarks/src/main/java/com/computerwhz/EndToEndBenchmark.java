@@ -0,0 +1,64 @@
+package com.computerwhz;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full client calls against {@link PerspectiveSimulator} with no latency or faults,
+ * so the numbers reflect client + loopback HTTP overhead. Use {@code -t N} for concurrency.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EndToEndBenchmark {
+
+    @Param({"short", "long"})
+    public String size;
+
+    private PerspectiveSimulator simulator;
+    private PerspectiveClient client;
+    private PreparedAnalysis prepared;
+    private List<Attribute> attributes;
+    private String text;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        text = BenchmarkFixtures.text(size);
+        attributes = BenchmarkFixtures.ALL_ATTRIBUTES;
+        simulator = PerspectiveSimulator.builder().build().start();
+
+        client = new PerspectiveClient("bench-key", simulator.endpoint(), null, null);
+        prepared = client.prepare(attributes, new PerspectiveClient.AnalyzeOptions());
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        simulator.close();
+    }
+
+    @Benchmark
+    public PerspectiveScore analyze() throws IOException {
+        return client.analyze(text, attributes);
+    }
+
+    @Benchmark
+    public PerspectiveScore analyzeAsync() {
+        return client.analyzeAsync(text, attributes, null).join();
+    }
+
+    @Benchmark
+    public PerspectiveScore prepared() throws IOException {
+        return prepared.analyze(text);
+    }
+
+    @Benchmark
+    public double toxicityScore() throws IOException {
+        return client.toxicityScore(text);
+    }
+}
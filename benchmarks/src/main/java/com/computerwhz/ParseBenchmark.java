@@ -0,0 +1,70 @@
+package com.computerwhz;
+
+import com.google.gson.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response parsing on realistic comments:analyze bodies, with and without spanScores:
+ * the streaming parser used by analyze(), the single-value scan used by toxicityScore(),
+ * and the original JsonObject tree walk for reference.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ParseBenchmark {
+
+    /** spanScores entries per attribute (0 = spanAnnotations off). */
+    @Param({"0", "20"})
+    public int spans;
+
+    private String text;
+    private List<Attribute> attributes;
+    private String json;
+    private Gson gson;
+
+    @Setup
+    public void setup() {
+        text = BenchmarkFixtures.LONG_TEXT;
+        attributes = BenchmarkFixtures.ALL_ATTRIBUTES;
+        json = BenchmarkFixtures.response(attributes, text.length(), spans);
+        gson = new Gson();
+    }
+
+    @Benchmark
+    public PerspectiveScore streamingParse() throws IOException {
+        return ResponseParser.parse(text, "en", new StringReader(json), attributes);
+    }
+
+    @Benchmark
+    public double toxicityOnlyScan() throws IOException {
+        return ResponseParser.summaryScore(new StringReader(json), Attribute.TOXICITY);
+    }
+
+    /** The pre-streaming implementation: whole-body JsonObject, then walk it. */
+    @Benchmark
+    public PerspectiveScore jsonTreeBaseline() {
+        JsonObject root = gson.fromJson(json, JsonObject.class);
+        JsonObject attrScores = root.getAsJsonObject("attributeScores");
+        PerspectiveScore.Builder b = PerspectiveScore.builder(text);
+        for (Attribute attr : attributes) {
+            JsonObject a = attrScores.getAsJsonObject(attr.name());
+            b.putScore(attr, a.getAsJsonObject("summaryScore").get("value").getAsDouble());
+            if (a.has("spanScores")) {
+                for (JsonElement e : a.getAsJsonArray("spanScores")) {
+                    JsonObject ss = e.getAsJsonObject();
+                    b.addSpan(new PerspectiveScore.SpanAnnotation(ss.get("begin").getAsInt(), ss.get("end").getAsInt(),
+                            attr.name(), ss.getAsJsonObject("score").get("value").getAsDouble()));
+                }
+            }
+        }
+        return b.build();
+    }
+}
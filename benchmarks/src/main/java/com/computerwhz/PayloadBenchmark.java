@@ -0,0 +1,89 @@
+package com.computerwhz;
+
+import com.google.gson.*;
+import okio.Buffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request payload construction: the streaming body used by analyze(), the PreparedAnalysis
+ * template, and the original JsonObject -> String -> byte[] path for reference.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PayloadBenchmark {
+
+    @Param({"short", "long"})
+    public String size;
+
+    @Param({"false", "true"})
+    public boolean withContext;
+
+    private Gson gson;
+    private String text;
+    private List<Attribute> attributes;
+    private PerspectiveClient.AnalyzeOptions options;
+    private PreparedAnalysis prepared;
+    private Buffer sink;
+
+    @Setup
+    public void setup() {
+        gson = new GsonBuilder().disableHtmlEscaping().create();
+        text = BenchmarkFixtures.text(size);
+        attributes = BenchmarkFixtures.ALL_ATTRIBUTES;
+        options = new PerspectiveClient.AnalyzeOptions().language("en").communityId("bench");
+        if (withContext) options.context(BenchmarkFixtures.CONTEXT);
+        prepared = new PerspectiveClient("bench-key").prepare(attributes, options);
+        sink = new Buffer();
+    }
+
+    @Benchmark
+    public long streamingBody() throws IOException {
+        sink.clear();
+        new AnalyzeRequestBody(gson, text, attributes, options).writeTo(sink);
+        return sink.size();
+    }
+
+    @Benchmark
+    public long preparedBody() throws IOException {
+        sink.clear();
+        prepared.newRequest(text).body().writeTo(sink);
+        return sink.size();
+    }
+
+    /** The pre-streaming implementation: JsonObject tree, then String, then bytes. */
+    @Benchmark
+    public long jsonTreeBaseline() {
+        JsonObject payload = new JsonObject();
+        JsonObject comment = new JsonObject();
+        comment.addProperty("text", text);
+        payload.add("comment", comment);
+        JsonArray langs = new JsonArray();
+        langs.add(options.language);
+        payload.add("languages", langs);
+        JsonObject reqAttrs = new JsonObject();
+        for (Attribute attr : attributes) reqAttrs.add(attr.name(), new JsonObject());
+        payload.add("requestedAttributes", reqAttrs);
+        payload.addProperty("doNotStore", options.doNotStore);
+        payload.addProperty("communityId", options.communityId);
+        if (options.context != null) {
+            JsonObject ctx = new JsonObject();
+            JsonArray entries = new JsonArray();
+            for (String c : options.context) {
+                JsonObject e = new JsonObject();
+                e.addProperty("text", c);
+                entries.add(e);
+            }
+            ctx.add("entries", entries);
+            payload.add("context", ctx);
+        }
+        return gson.toJson(payload).getBytes(java.nio.charset.StandardCharsets.UTF_8).length;
+    }
+}
@@ -0,0 +1,61 @@
+package com.computerwhz;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/** PerspectiveScore.Builder/build and the accessors callers hit per result. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ScoreBenchmark {
+
+    private static final List<String> EN = Collections.singletonList("en");
+
+    private final Attribute[] attributes = Attribute.values();
+    private PerspectiveScore score;
+
+    @Setup
+    public void setup() {
+        score = build();
+    }
+
+    @Benchmark
+    public PerspectiveScore build() {
+        PerspectiveScore.Builder b = PerspectiveScore.builder(BenchmarkFixtures.SHORT_TEXT).languages(EN);
+        for (int i = 0; i < attributes.length; i++) b.putScore(attributes[i], i / 10.0);
+        return b.build();
+    }
+
+    @Benchmark
+    public PerspectiveScore buildWithSpans() {
+        PerspectiveScore.Builder b = PerspectiveScore.builder(BenchmarkFixtures.SHORT_TEXT).languages(EN);
+        for (int i = 0; i < attributes.length; i++) {
+            b.putScore(attributes[i], i / 10.0);
+            b.addSpan(new PerspectiveScore.SpanAnnotation(0, 10, attributes[i].name(), i / 10.0));
+        }
+        return b.build();
+    }
+
+    @Benchmark
+    public double primitiveLookup() {
+        return score.score(Attribute.TOXICITY) + score.score(Attribute.INSULT);
+    }
+
+    @Benchmark
+    public boolean isToxic() {
+        return score.isToxic(0.8);
+    }
+
+    /** getScores() is built lazily and cached, so measure it on a fresh score (compare with build()). */
+    @Benchmark
+    public Map<String, Double> scoresMap() {
+        return build().getScores();
+    }
+}
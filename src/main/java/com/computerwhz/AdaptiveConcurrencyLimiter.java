@@ -0,0 +1,161 @@
+package com.computerwhz;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AIMD concurrency limit that follows the server's capacity instead of a fixed guess.
+ *
+ * - Additive increase: while the limit is actually in use and latency stays within
+ *   {@code rttTolerance} x the observed minimum RTT, the limit grows by ~1 per round trip.
+ * - Multiplicative decrease: on an overload signal (429/503, timeout) or an RTT above the
+ *   tolerance, the limit is multiplied by {@code backoffRatio}, at most once per RTT so a
+ *   single congestion event is not counted once per in-flight request.
+ *
+ * Requests over the limit wait in FIFO order. {@link #getLimit()} exposes the current limit for metrics.
+ */
+public final class AdaptiveConcurrencyLimiter {
+
+    /** Re-measure the RTT floor every this many samples so it can follow a slower backend. */
+    private static final int MIN_RTT_RESET_SAMPLES = 1000;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double rttTolerance;
+
+    private final ArrayDeque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+    private long minRttNanos = Long.MAX_VALUE;
+    private int samplesSinceReset;
+    private long lastDecreaseNanos = System.nanoTime() - TimeUnit.DAYS.toNanos(1);
+
+    /** Starts at 20, adapts between 1 and 1000, backs off by 10%, tolerates 2x the minimum RTT. */
+    public AdaptiveConcurrencyLimiter() {
+        this(20, 1, 1000, 0.9, 2.0);
+    }
+
+    /**
+     * @param initialLimit starting limit
+     * @param minLimit     floor the limit never drops below (>= 1)
+     * @param maxLimit     ceiling the limit never grows above
+     * @param backoffRatio factor applied on overload, in (0, 1)
+     * @param rttTolerance RTT / minRTT ratio above which latency counts as congestion (> 1)
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      double backoffRatio, double rttTolerance) {
+        if (minLimit < 1 || maxLimit < minLimit) throw new IllegalArgumentException("require 1 <= minLimit <= maxLimit");
+        if (!(backoffRatio > 0 && backoffRatio < 1)) throw new IllegalArgumentException("backoffRatio must be in (0, 1)");
+        if (!(rttTolerance > 1)) throw new IllegalArgumentException("rttTolerance must be > 1");
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.rttTolerance = rttTolerance;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    // ---------- metrics
+
+    /** Current concurrency limit. */
+    public synchronized int getLimit() { return (int) limit; }
+
+    public synchronized int getInFlight() { return inFlight; }
+
+    /** Requests waiting for a slot. */
+    public synchronized int getQueued() { return waiters.size(); }
+
+    /** Lowest RTT seen in the current measurement window, or -1 if none yet. */
+    public synchronized long getMinRttNanos() { return minRttNanos == Long.MAX_VALUE ? -1L : minRttNanos; }
+
+    // ---------- permits
+
+    /**
+     * Requests a slot. The returned future completes once the caller may send; the caller must
+     * then call exactly one of the {@code release} methods. Cancelling a pending future withdraws it.
+     */
+    public CompletableFuture<Void> acquire() {
+        synchronized (this) {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> w = new CompletableFuture<>();
+            waiters.addLast(w);
+            return w;
+        }
+    }
+
+    /** Releases a slot after a completed request and feeds its outcome into the limit. */
+    public void release(long rttNanos, boolean overloaded) {
+        List<CompletableFuture<Void>> granted;
+        synchronized (this) {
+            inFlight--;
+            update(rttNanos, overloaded);
+            granted = drain();
+        }
+        grant(granted);
+    }
+
+    /** Releases a slot without a sample (cancelled or client-side failure). */
+    public void release() {
+        List<CompletableFuture<Void>> granted;
+        synchronized (this) {
+            inFlight--;
+            granted = drain();
+        }
+        grant(granted);
+    }
+
+    private void update(long rttNanos, boolean overloaded) {
+        long now = System.nanoTime();
+        if (!overloaded && rttNanos > 0) {
+            if (++samplesSinceReset >= MIN_RTT_RESET_SAMPLES) {
+                samplesSinceReset = 0;
+                minRttNanos = rttNanos;
+            } else {
+                minRttNanos = Math.min(minRttNanos, rttNanos);
+            }
+        }
+
+        boolean congested = overloaded || (rttNanos > 0 && rttNanos > minRttNanos * rttTolerance);
+        if (congested) {
+            long window = (minRttNanos == Long.MAX_VALUE) ? rttNanos : minRttNanos;
+            if (now - lastDecreaseNanos >= window) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                lastDecreaseNanos = now;
+            }
+        } else if (inFlight + 1 >= limit / 2) {
+            // only grow when the limit is actually the bottleneck, not while the app is idle
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    private List<CompletableFuture<Void>> drain() {
+        List<CompletableFuture<Void>> granted = null;
+        CompletableFuture<Void> w;
+        while (inFlight < (int) limit && (w = waiters.pollFirst()) != null) {
+            if (w.isDone()) continue; // withdrawn
+            inFlight++;
+            if (granted == null) granted = new ArrayList<>(2);
+            granted.add(w);
+        }
+        return granted;
+    }
+
+    /** Completes outside the lock; a waiter cancelled in the meantime hands its slot back. */
+    private void grant(List<CompletableFuture<Void>> granted) {
+        if (granted == null) return;
+        for (CompletableFuture<Void> w : granted) {
+            if (!w.complete(null)) release();
+        }
+    }
+
+    @Override public synchronized String toString() {
+        return "AdaptiveConcurrencyLimiter{limit=" + (int) limit + ", inFlight=" + inFlight +
+                ", queued=" + waiters.size() + '}';
+    }
+}
@@ -0,0 +1,107 @@
+package com.computerwhz;
+
+import java.util.*;
+
+/**
+ * Case-insensitive multi-pattern matcher compiled into flat arrays: one pass over the text finds
+ * any of the terms, regardless of how many there are.
+ */
+final class AhoCorasick {
+
+    /** Per state: sorted transition chars and their target states. */
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] fail;
+    /** Length of the term ending at this state, 0 if none. */
+    private final int[] termLength;
+    /** Nearest state down the failure chain that ends a term, -1 if none. */
+    private final int[] outputLink;
+
+    AhoCorasick(Collection<String> terms) {
+        List<Map<Character, Integer>> trie = new ArrayList<>();
+        List<Integer> lengths = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        lengths.add(0);
+        for (String term : terms) {
+            if (term == null || term.isEmpty()) continue;
+            int s = 0;
+            for (int i = 0; i < term.length(); i++) {
+                char c = Character.toLowerCase(term.charAt(i));
+                Integer next = trie.get(s).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<>());
+                    lengths.add(0);
+                    trie.get(s).put(c, next);
+                }
+                s = next;
+            }
+            lengths.set(s, term.length());
+        }
+
+        int n = trie.size();
+        edgeChars = new char[n][];
+        edgeTargets = new int[n][];
+        termLength = new int[n];
+        for (int s = 0; s < n; s++) {
+            Map<Character, Integer> edges = trie.get(s);
+            edgeChars[s] = new char[edges.size()];
+            edgeTargets[s] = new int[edges.size()];
+            int k = 0;
+            for (Map.Entry<Character, Integer> e : edges.entrySet()) { // TreeMap: sorted for binary search
+                edgeChars[s][k] = e.getKey();
+                edgeTargets[s][k++] = e.getValue();
+            }
+            termLength[s] = lengths.get(s);
+        }
+
+        // breadth-first: failure link = longest proper suffix that is also a trie path
+        fail = new int[n];
+        outputLink = new int[n];
+        Arrays.fill(outputLink, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int t : edgeTargets[0]) queue.add(t);
+        while (!queue.isEmpty()) {
+            int s = queue.poll();
+            for (int k = 0; k < edgeChars[s].length; k++) {
+                char c = edgeChars[s][k];
+                int t = edgeTargets[s][k];
+                int f = fail[s];
+                while (f != 0 && next(f, c) < 0) f = fail[f];
+                int ft = next(f, c);
+                fail[t] = (ft >= 0 && ft != t) ? ft : 0;
+                outputLink[t] = termLength[fail[t]] > 0 ? fail[t] : outputLink[fail[t]];
+                queue.add(t);
+            }
+        }
+    }
+
+    /**
+     * Whether any term occurs in {@code text}.
+     *
+     * @param wholeWords only count matches not preceded or followed by a letter or digit
+     */
+    boolean matches(String text, boolean wholeWords) {
+        int s = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            int t;
+            while ((t = next(s, c)) < 0 && s != 0) s = fail[s];
+            s = Math.max(t, 0);
+            for (int o = (termLength[s] > 0) ? s : outputLink[s]; o >= 0; o = outputLink[o]) {
+                if (!wholeWords || isBoundary(text, i - termLength[o] + 1, i + 1)) return true;
+            }
+        }
+        return false;
+    }
+
+    private int next(int state, char c) {
+        int k = Arrays.binarySearch(edgeChars[state], c);
+        return k >= 0 ? edgeTargets[state][k] : -1;
+    }
+
+    private static boolean isBoundary(String text, int begin, int end) {
+        return (begin == 0 || !Character.isLetterOrDigit(text.charAt(begin - 1)))
+                && (end == text.length() || !Character.isLetterOrDigit(text.charAt(end)));
+    }
+}
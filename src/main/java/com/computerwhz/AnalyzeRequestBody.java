@@ -0,0 +1,126 @@
+package com.computerwhz;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * comments:analyze payload serialized with a JsonWriter straight into OkHttp's sink, with no
+ * intermediate JsonObject tree or String. Replayable, so retries and hedges can resend it.
+ * The length is found by a counting pass, so the request carries Content-Length rather than
+ * being sent chunked.
+ */
+final class AnalyzeRequestBody extends RequestBody {
+
+    static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    private final Gson gson;
+    private final String text;
+    private final List<Attribute> attributes;
+    private final PerspectiveClient.AnalyzeOptions options;
+    private long length = -1L;
+
+    AnalyzeRequestBody(Gson gson, String text, List<Attribute> attributes, PerspectiveClient.AnalyzeOptions options) {
+        this.gson = gson;
+        this.text = text;
+        this.attributes = attributes;
+        this.options = options;
+    }
+
+    @Override public MediaType contentType() { return JSON; }
+
+    @Override public synchronized long contentLength() throws IOException {
+        if (length < 0) {
+            Utf8Counter counter = new Utf8Counter();
+            JsonWriter w = gson.newJsonWriter(counter);
+            write(w);
+            w.flush();
+            length = counter.count();
+        }
+        return length;
+    }
+
+    @Override public void writeTo(BufferedSink sink) throws IOException {
+        Writer out = new OutputStreamWriter(sink.outputStream(), StandardCharsets.UTF_8);
+        JsonWriter w = gson.newJsonWriter(out); // honours the Gson's html-escaping setting
+        write(w);
+        w.flush();
+    }
+
+    void write(JsonWriter w) throws IOException {
+        w.beginObject();
+
+        w.name("comment").beginObject().name("text").value(text).endObject();
+
+        w.name("languages").beginArray()
+                .value(options.language == null || options.language.isEmpty() ? "en" : options.language)
+                .endArray();
+
+        w.name("requestedAttributes").beginObject();
+        for (Attribute attr : attributes) {
+            w.name(attr.name()).beginObject().endObject();
+        }
+        w.endObject();
+
+        if (options.doNotStore != null) w.name("doNotStore").value(options.doNotStore);
+        if (options.clientToken != null) w.name("clientToken").value(options.clientToken);
+        if (options.communityId != null) w.name("communityId").value(options.communityId);
+        if (options.spanAnnotations != null) w.name("spanAnnotations").value(options.spanAnnotations);
+        if (options.sessionId != null) w.name("sessionId").value(options.sessionId);
+        if (options.context != null && !options.context.isEmpty()) {
+            w.name("context").beginObject().name("entries").beginArray();
+            for (String c : options.context) {
+                w.beginObject().name("text").value(c).endObject();
+            }
+            w.endArray().endObject();
+        }
+
+        w.endObject();
+    }
+
+    /** Counts the bytes an OutputStreamWriter would encode as UTF-8, without encoding them. */
+    static final class Utf8Counter extends Writer {
+        private long bytes;
+        private boolean pendingHigh;
+
+        @Override public void write(int c) { add((char) c); }
+
+        @Override public void write(char[] buf, int off, int len) {
+            for (int i = off; i < off + len; i++) add(buf[i]);
+        }
+
+        @Override public void write(String str, int off, int len) {
+            for (int i = off; i < off + len; i++) add(str.charAt(i));
+        }
+
+        private void add(char c) {
+            if (pendingHigh) {
+                pendingHigh = false;
+                if (Character.isLowSurrogate(c)) {
+                    bytes += 4;
+                    return;
+                }
+                bytes += 1; // unpaired surrogate: the encoder writes '?'
+            }
+            if (c < 0x80) bytes += 1;
+            else if (c < 0x800) bytes += 2;
+            else if (Character.isHighSurrogate(c)) pendingHigh = true;
+            else if (Character.isLowSurrogate(c)) bytes += 1;
+            else bytes += 3;
+        }
+
+        long count() { return bytes + (pendingHigh ? 1 : 0); }
+
+        @Override public void flush() {}
+
+        @Override public void close() {}
+    }
+}
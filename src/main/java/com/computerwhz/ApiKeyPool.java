@@ -0,0 +1,169 @@
+package com.computerwhz;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Several API keys (typically one per Google Cloud project) behind one client, so throughput
+ * scales with the number of keys. Use with {@link PerspectiveClient#builder(ApiKeyPool)}.
+ *
+ * - Each key may have its own {@link RateLimiter} matching its project's quota.
+ * - Every HTTP attempt takes the least-loaded healthy key: the one whose next permit is soonest,
+ *   then the one with the fewest requests in flight.
+ * - A key answered with 429 is drained (skipped) for its Retry-After or {@code overloadDrain},
+ *   whichever is longer; with 403 (key invalid, API disabled) for {@code forbiddenDrain}.
+ * - If every key is drained, attempts fail fast with {@link RateLimitExceededException}.
+ */
+public final class ApiKeyPool {
+
+    private final List<Key> keys;
+    private final long overloadDrainNanos;
+    private final long forbiddenDrainNanos;
+
+    private ApiKeyPool(Builder b) {
+        if (b.keys.isEmpty()) throw new IllegalArgumentException("at least one key is required");
+        this.keys = Collections.unmodifiableList(new ArrayList<>(b.keys));
+        this.overloadDrainNanos = b.overloadDrain.toNanos();
+        this.forbiddenDrainNanos = b.forbiddenDrain.toNanos();
+    }
+
+    public static Builder builder() { return new Builder(); }
+
+    /** Per-key state, in the order the keys were added. */
+    public List<Key> getKeys() { return keys; }
+
+    public int getHealthyCount() {
+        long now = System.nanoTime();
+        int n = 0;
+        for (Key k : keys) if (!k.isDrained(now)) n++;
+        return n;
+    }
+
+    /** First key; used for URLs built before a key is chosen per attempt. */
+    String primaryKey() { return keys.get(0).apiKey; }
+
+    /** Picks a key for one attempt; the caller must {@link Lease#release} it when the attempt ends. */
+    Lease acquire() throws RateLimitExceededException {
+        long now = System.nanoTime();
+        Key best = null;
+        long bestWait = Long.MAX_VALUE;
+        int bestInFlight = Integer.MAX_VALUE;
+        for (Key k : keys) {
+            if (k.isDrained(now)) continue;
+            long wait = (k.limiter == null) ? 0L : k.limiter.waitNanos();
+            int inFlight = k.inFlight.get();
+            if (wait < bestWait || (wait == bestWait && inFlight < bestInFlight)) {
+                best = k;
+                bestWait = wait;
+                bestInFlight = inFlight;
+            }
+        }
+        if (best == null) throw new RateLimitExceededException("all " + keys.size() + " API keys are drained");
+
+        long wait = (best.limiter == null) ? 0L : best.limiter.acquireOrReject();
+        best.inFlight.incrementAndGet();
+        best.requests.increment();
+        return new Lease(best, wait);
+    }
+
+    /** One attempt's hold on a key. */
+    final class Lease {
+        final Key key;
+        /** Nanos to wait for the key's rate limiter before sending. */
+        final long waitNanos;
+
+        private Lease(Key key, long waitNanos) {
+            this.key = key;
+            this.waitNanos = waitNanos;
+        }
+
+        String apiKey() { return key.apiKey; }
+
+        /** Ends the attempt; 429 and 403 responses drain the key. */
+        void release(Throwable err) {
+            key.inFlight.decrementAndGet();
+            Throwable t = (err == null) ? null : PerspectiveClient.unwrap(err);
+            if (!(t instanceof PerspectiveApiException)) return;
+            PerspectiveApiException e = (PerspectiveApiException) t;
+            long drain;
+            if (e.getStatusCode() == 429) {
+                Duration retryAfter = e.getRetryAfter();
+                drain = Math.max(overloadDrainNanos, retryAfter == null ? 0L : retryAfter.toNanos());
+            } else if (e.getStatusCode() == 403) {
+                drain = forbiddenDrainNanos;
+            } else {
+                return;
+            }
+            key.rejections.increment();
+            key.drainedUntil = System.nanoTime() + drain;
+        }
+    }
+
+    /** One key and its live state. */
+    public static final class Key {
+        private final String apiKey;
+        private final RateLimiter limiter;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder rejections = new LongAdder();
+        private volatile long drainedUntil = System.nanoTime();
+
+        private Key(String apiKey, RateLimiter limiter) {
+            this.apiKey = apiKey;
+            this.limiter = limiter;
+        }
+
+        /** Last four characters, for logs and dashboards. */
+        public String getId() {
+            return "..." + apiKey.substring(Math.max(0, apiKey.length() - 4));
+        }
+
+        public RateLimiter getRateLimiter() { return limiter; }
+
+        public int getInFlight() { return inFlight.get(); }
+
+        public long getRequestCount() { return requests.sum(); }
+
+        /** 429/403 responses, each of which drained the key. */
+        public long getRejectionCount() { return rejections.sum(); }
+
+        public boolean isDrained() { return isDrained(System.nanoTime()); }
+
+        private boolean isDrained(long now) { return drainedUntil - now > 0; }
+
+        @Override public String toString() {
+            return "Key{" + getId() + ", inFlight=" + getInFlight() + ", drained=" + isDrained() + '}';
+        }
+    }
+
+    public static final class Builder {
+        private final List<Key> keys = new ArrayList<>();
+        private Duration overloadDrain = Duration.ofSeconds(10);
+        private Duration forbiddenDrain = Duration.ofMinutes(10);
+
+        private Builder() {}
+
+        /** Adds a key with no client-side limit. */
+        public Builder addKey(String apiKey) { return addKey(apiKey, null); }
+
+        /** Adds a key limited by {@code limiter}, e.g. {@code RateLimiter.perSecond(quota)}. */
+        public Builder addKey(String apiKey, RateLimiter limiter) {
+            if (apiKey == null || apiKey.isEmpty()) throw new IllegalArgumentException("apiKey is required");
+            keys.add(new Key(apiKey, limiter));
+            return this;
+        }
+
+        /** Minimum time a key is skipped after a 429 (default 10s). */
+        public Builder overloadDrain(Duration v) { this.overloadDrain = Objects.requireNonNull(v); return this; }
+
+        /** Time a key is skipped after a 403 (default 10 minutes). */
+        public Builder forbiddenDrain(Duration v) { this.forbiddenDrain = Objects.requireNonNull(v); return this; }
+
+        public ApiKeyPool build() { return new ApiKeyPool(this); }
+    }
+}
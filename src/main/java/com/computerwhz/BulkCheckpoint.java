@@ -0,0 +1,212 @@
+package com.computerwhz;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Progress of a {@link BulkJob}, persisted so a restarted job skips every record already in the output.
+ *
+ * Per input segment: a watermark (byte offset before which every record is done) and a bitmap of
+ * done records in the window after it. The file also records the output length the progress
+ * refers to; on resume the output is truncated back to it, so results written after the last
+ * checkpoint (and their records) are redone rather than duplicated. Saved by writing a temp file,
+ * fsyncing it and renaming it over the previous checkpoint.
+ *
+ * Format (big-endian): magic, version, input size, input mtime, output length, segment count,
+ * then per segment: start, end, watermark, bitmap length in bits, bitmap words.
+ */
+final class BulkCheckpoint {
+
+    private static final int MAGIC = 0x50434b50; // "PCKP"
+    private static final int VERSION = 1;
+
+    private final Path file;
+    private final long inputSize;
+    private final long inputModified;
+    private final long outputLength;
+    private final List<Segment> segments;
+
+    private BulkCheckpoint(Path file, long inputSize, long inputModified, long outputLength, List<Segment> segments) {
+        this.file = file;
+        this.inputSize = inputSize;
+        this.inputModified = inputModified;
+        this.outputLength = outputLength;
+        this.segments = segments;
+    }
+
+    static BulkCheckpoint fresh(Path file, long inputSize, long inputModified, List<long[]> ranges) {
+        List<Segment> segs = new ArrayList<>(ranges.size());
+        for (long[] r : ranges) segs.add(new Segment(r[0], r[1], r[0], new long[0], 0));
+        return new BulkCheckpoint(file, inputSize, inputModified, 0L, segs);
+    }
+
+    /** @return the saved checkpoint, or null if there is none */
+    static BulkCheckpoint load(Path file) throws IOException {
+        if (!Files.exists(file)) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) throw new IOException("not a bulk checkpoint: " + file);
+            long inputSize = in.readLong();
+            long inputModified = in.readLong();
+            long outputLength = in.readLong();
+            int n = in.readInt();
+            List<Segment> segs = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                long start = in.readLong(), end = in.readLong(), watermark = in.readLong();
+                int bits = in.readInt();
+                long[] words = new long[(bits + 63) >>> 6];
+                for (int w = 0; w < words.length; w++) words[w] = in.readLong();
+                segs.add(new Segment(start, end, watermark, words, bits));
+            }
+            return new BulkCheckpoint(file, inputSize, inputModified, outputLength, segs);
+        } catch (EOFException e) {
+            throw new IOException("truncated bulk checkpoint: " + file, e);
+        }
+    }
+
+    boolean matches(long size, long modified) { return inputSize == size && inputModified == modified; }
+
+    long outputLength() { return outputLength; }
+
+    List<Segment> segments() { return Collections.unmodifiableList(segments); }
+
+    /**
+     * Serializes current progress; the caller must hold the output writer's lock and have flushed
+     * it, so every completed record is in the first {@code outputLength} bytes.
+     */
+    byte[] snapshot(long outputLength) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + segments.size() * 64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(inputSize);
+            out.writeLong(inputModified);
+            out.writeLong(outputLength);
+            out.writeInt(segments.size());
+            for (Segment s : segments) s.writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // in-memory stream
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Atomically replaces the checkpoint file with {@code snapshot}. */
+    void save(byte[] snapshot) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.wrap(snapshot);
+            while (buf.hasRemaining()) ch.write(buf);
+            ch.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Progress through one segment. Records are numbered in scan order from the watermark; the
+     * window holds, for each record issued but not yet below the watermark, whether it is done
+     * and where it ends.
+     */
+    static final class Segment {
+        final long start;
+        final long end;
+
+        private long watermark;
+        /** Sequence number of the record at the watermark. */
+        private long base;
+        /** Sequence number of the next record to issue. */
+        private long issued;
+        private boolean[] done;
+        private long[] ends;
+        /** Done flags carried over from the checkpoint for records at/after the watermark. */
+        private final long[] resumed;
+        private final int resumedBits;
+        private boolean scanned;
+
+        Segment(long start, long end, long watermark, long[] resumed, int resumedBits) {
+            this.start = start;
+            this.end = end;
+            this.watermark = watermark;
+            this.resumed = resumed;
+            this.resumedBits = resumedBits;
+            this.done = new boolean[64];
+            this.ends = new long[64];
+        }
+
+        synchronized long watermark() { return watermark; }
+
+        /**
+         * Registers the next record (ending at {@code recordEnd}) in scan order.
+         *
+         * @return its sequence number, or -1 if the checkpoint says it is already done
+         */
+        synchronized long issue(long recordEnd) {
+            if (issued - base == done.length) grow();
+            long seq = issued++;
+            int slot = slot(seq);
+            ends[slot] = recordEnd;
+            boolean already = wasDone(seq);
+            done[slot] = already;
+            advance();
+            return already ? -1L : seq;
+        }
+
+        synchronized void complete(long seq) {
+            done[slot(seq)] = true;
+            advance();
+        }
+
+        /** Every record has been issued; once they are done the watermark moves to the segment end. */
+        synchronized void scanned() {
+            scanned = true;
+            advance();
+        }
+
+        private void advance() {
+            while (base < issued && done[slot(base)]) {
+                watermark = ends[slot(base)];
+                base++;
+            }
+            if (scanned && base == issued) watermark = end;
+        }
+
+        private boolean wasDone(long seq) {
+            return seq < resumedBits && (resumed[(int) (seq >>> 6)] & (1L << seq)) != 0;
+        }
+
+        private int slot(long seq) { return (int) (seq & (done.length - 1)); }
+
+        private void grow() {
+            int n = done.length;
+            boolean[] d = new boolean[n * 2];
+            long[] e = new long[n * 2];
+            for (long s = base; s < issued; s++) {
+                d[(int) (s & (2 * n - 1))] = done[(int) (s & (n - 1))];
+                e[(int) (s & (2 * n - 1))] = ends[(int) (s & (n - 1))];
+            }
+            done = d;
+            ends = e;
+        }
+
+        /** Window relative to the current watermark: bit i set = record base + i done. */
+        private synchronized void writeTo(DataOutput out) throws IOException {
+            // records not re-issued yet since resuming keep their checkpointed flags
+            int bits = (int) (Math.max(issued, resumedBits) - base);
+            long[] words = new long[(Math.max(0, bits) + 63) >>> 6];
+            for (int i = 0; i < bits; i++) {
+                long seq = base + i;
+                if (seq < issued ? done[slot(seq)] : wasDone(seq)) words[i >>> 6] |= 1L << i;
+            }
+            bits = Math.max(0, bits);
+            out.writeLong(start);
+            out.writeLong(end);
+            out.writeLong(watermark);
+            out.writeInt(bits);
+            for (long w : words) out.writeLong(w);
+        }
+    }
+}
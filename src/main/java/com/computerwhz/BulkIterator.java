@@ -0,0 +1,91 @@
+package com.computerwhz;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * Pull-driven iterator behind {@link PerspectiveClient#analyzeAll}: keeps at most
+ * {@code maxInFlight} requests outstanding and only reads more input as results are consumed.
+ * Single consumer; not thread-safe.
+ */
+final class BulkIterator implements Iterator<BulkResult>, AutoCloseable {
+
+    private final Iterator<String> source;
+    private final Function<String, CompletableFuture<PerspectiveScore>> scorer;
+    private final int maxInFlight;
+    private final boolean ordered;
+
+    /** Ordered mode: results in input order. */
+    private final ArrayDeque<CompletableFuture<BulkResult>> pending = new ArrayDeque<>();
+    /** Unordered mode: results in completion order. */
+    private final BlockingQueue<BulkResult> completed = new LinkedBlockingQueue<>();
+    /** Requests not yet completed, so close() can cancel them. */
+    private final Set<CompletableFuture<PerspectiveScore>> inFlight = ConcurrentHashMap.newKeySet();
+
+    private long nextIndex;
+    private int outstanding;
+    private boolean closed;
+
+    BulkIterator(Iterator<String> source, Function<String, CompletableFuture<PerspectiveScore>> scorer,
+                 int maxInFlight, boolean ordered) {
+        if (maxInFlight < 1) throw new IllegalArgumentException("maxInFlight must be >= 1");
+        this.source = Objects.requireNonNull(source, "source");
+        this.scorer = Objects.requireNonNull(scorer, "scorer");
+        this.maxInFlight = maxInFlight;
+        this.ordered = ordered;
+    }
+
+    @Override public boolean hasNext() {
+        fill();
+        return outstanding > 0;
+    }
+
+    @Override public BulkResult next() {
+        fill();
+        if (outstanding == 0) throw new NoSuchElementException();
+        try {
+            BulkResult r = ordered ? pending.removeFirst().get() : completed.take();
+            outstanding--;
+            return r;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new CancellationException("interrupted while waiting for bulk results");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause()); // handle() below never completes exceptionally
+        }
+    }
+
+    /** Cancels all in-flight requests; no further input is read. */
+    @Override public void close() {
+        closed = true;
+        for (CompletableFuture<PerspectiveScore> f : inFlight) f.cancel(true);
+    }
+
+    private void fill() {
+        while (!closed && outstanding < maxInFlight && source.hasNext()) {
+            launch(nextIndex++, source.next());
+        }
+    }
+
+    private void launch(long index, String text) {
+        CompletableFuture<PerspectiveScore> call;
+        try {
+            call = scorer.apply(text);
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e); // e.g. empty text: report it, keep going
+        }
+        inFlight.add(call);
+        CompletableFuture<PerspectiveScore> tracked = call;
+        CompletableFuture<BulkResult> result = call.handle((score, err) -> {
+            inFlight.remove(tracked);
+            return (err == null)
+                    ? new BulkResult(index, text, score, null)
+                    : new BulkResult(index, text, null, PerspectiveClient.unwrap(err));
+        });
+        if (ordered) pending.addLast(result);
+        else result.thenAccept(completed::add);
+        outstanding++;
+    }
+}
@@ -0,0 +1,561 @@
+package com.computerwhz;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Scores a JSONL file (one {@code {"id": ..., "text": ...}} object per line) and writes one JSONL
+ * result per line, without loading the input into heap.
+ *
+ * - The input is memory-mapped and split on line boundaries into segments read in parallel.
+ * - At most {@code maxInFlight} requests are outstanding across all segments, so throughput is set
+ *   by the client's rate limiter and quota, not by the reader.
+ * - Results are appended through one buffered FileChannel in completion order; each record carries
+ *   the input line's byte offset and its id (if present).
+ *
+ * Output: {@code {"offset":0,"id":"a1","scores":{"TOXICITY":0.02}}} or
+ * {@code {"offset":57,"id":"a2","error":"...","status":429}} (status 0 when there was no HTTP response).
+ * Scores the API omitted for a requested attribute are written as {@code null}.
+ * Lines without a text field are reported as errors and counted as skipped; blank lines are ignored.
+ *
+ * With a {@linkplain Builder#checkpoint checkpoint file} the job saves its progress periodically
+ * (see {@link BulkCheckpoint}); rerunning it with the same input, output and checkpoint resumes
+ * after the last checkpoint instead of rescoring from the start.
+ */
+public final class BulkJob {
+
+    /** Segments are mapped individually; keep them well under the 2 GiB mapping limit. */
+    private static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+    private final PerspectiveClient client;
+    private final Path input;
+    private final Path output;
+    private final List<Attribute> attributes;
+    private final PerspectiveClient.AnalyzeOptions options;
+    private final String textField;
+    private final String idField;
+    private final int segments;
+    private final int maxInFlight;
+    private final Path checkpointFile;
+    private final Duration checkpointInterval;
+
+    private BulkJob(Builder b) {
+        if (b.attributes == null || b.attributes.isEmpty()) throw new IllegalArgumentException("at least one attribute is required");
+        if (b.segments < 1) throw new IllegalArgumentException("segments must be >= 1");
+        if (b.maxInFlight < 1) throw new IllegalArgumentException("maxInFlight must be >= 1");
+        this.client = b.client;
+        this.input = b.input;
+        this.output = b.output;
+        this.attributes = List.copyOf(b.attributes);
+        this.options = (b.options == null) ? new PerspectiveClient.AnalyzeOptions() : b.options.copy();
+        this.textField = b.textField;
+        this.idField = b.idField;
+        this.segments = b.segments;
+        this.maxInFlight = b.maxInFlight;
+        this.checkpointFile = b.checkpointFile;
+        this.checkpointInterval = b.checkpointInterval;
+    }
+
+    public static Builder builder(PerspectiveClient client, Path input, Path output) {
+        return new Builder(client, input, output);
+    }
+
+    /** Runs the job to completion; per-line failures are written to the output, not thrown. */
+    public Summary run() throws IOException {
+        long started = System.nanoTime();
+        Run run = new Run(maxInFlight);
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ)) {
+            BulkCheckpoint checkpoint = openCheckpoint(in);
+            boolean resuming = checkpoint != null && checkpoint.outputLength() > 0;
+            if (resuming) truncateOutput(checkpoint.outputLength());
+
+            List<BulkCheckpoint.Segment> progress = (checkpoint == null) ? null : checkpoint.segments();
+            List<long[]> ranges = new ArrayList<>();
+            if (progress == null) ranges.addAll(split(in, segments));
+            else for (BulkCheckpoint.Segment s : progress) ranges.add(new long[]{s.start, s.end});
+
+            try (JsonlWriter out = new JsonlWriter(output, resuming)) {
+                run.out = out;
+                ScheduledExecutorService saver = (checkpoint == null) ? null : startCheckpoints(run, checkpoint);
+                ExecutorService readers = Executors.newFixedThreadPool(Math.max(1, ranges.size()), daemon("perspective-bulk-reader"));
+                try {
+                    List<Future<?>> scans = new ArrayList<>();
+                    for (int i = 0; i < ranges.size(); i++) {
+                        long[] range = ranges.get(i);
+                        BulkCheckpoint.Segment segment = (progress == null) ? null : progress.get(i);
+                        scans.add(readers.submit(() -> {
+                            scan(in, range[0], range[1], segment, run);
+                            return null;
+                        }));
+                    }
+                    for (Future<?> f : scans) await(f);
+                } finally {
+                    readers.shutdownNow();
+                    run.permits.acquireUninterruptibly(maxInFlight); // wait for in-flight requests
+                    if (saver != null) stopCheckpoints(saver);
+                }
+                IOException writeError = run.writeError.get();
+                if (writeError != null) throw writeError;
+                if (checkpoint != null) saveCheckpoint(run, checkpoint);
+            }
+        }
+        return new Summary(run.lines.sum(), run.scored.sum(), run.failed.sum(), run.skipped.sum(),
+                run.alreadyDone.sum(), Duration.ofNanos(System.nanoTime() - started));
+    }
+
+    // ---------- checkpoints
+
+    /** Loads (or creates) the checkpoint; null when checkpointing is off. */
+    private BulkCheckpoint openCheckpoint(FileChannel in) throws IOException {
+        if (checkpointFile == null) return null;
+        long size = in.size();
+        long modified = Files.getLastModifiedTime(input).toMillis();
+        BulkCheckpoint cp = BulkCheckpoint.load(checkpointFile);
+        if (cp == null) return BulkCheckpoint.fresh(checkpointFile, size, modified, split(in, segments));
+        if (!cp.matches(size, modified)) {
+            throw new IOException("checkpoint " + checkpointFile + " was written for a different version of "
+                    + input + "; delete it to start over");
+        }
+        return cp;
+    }
+
+    /** Drops results written after the checkpoint; their records are scored again. */
+    private void truncateOutput(long length) throws IOException {
+        if (!Files.exists(output) || Files.size(output) < length) {
+            throw new IOException("output " + output + " is shorter than its checkpoint; delete the checkpoint to start over");
+        }
+        try (FileChannel ch = FileChannel.open(output, StandardOpenOption.WRITE)) {
+            ch.truncate(length);
+        }
+    }
+
+    private ScheduledExecutorService startCheckpoints(Run run, BulkCheckpoint checkpoint) {
+        ScheduledExecutorService saver = Executors.newSingleThreadScheduledExecutor(daemon("perspective-bulk-checkpoint"));
+        long every = checkpointInterval.toNanos();
+        saver.scheduleWithFixedDelay(() -> {
+            try {
+                saveCheckpoint(run, checkpoint);
+            } catch (IOException e) {
+                run.writeError.compareAndSet(null, e); // stops the readers
+            }
+        }, every, every, TimeUnit.NANOSECONDS);
+        return saver;
+    }
+
+    private static void stopCheckpoints(ScheduledExecutorService saver) {
+        saver.shutdown();
+        try {
+            saver.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Makes the output durable, then records progress that covers exactly what it contains. */
+    private static void saveCheckpoint(Run run, BulkCheckpoint checkpoint) throws IOException {
+        byte[] snapshot;
+        synchronized (run.out) {
+            run.out.flush(true);
+            snapshot = checkpoint.snapshot(run.out.length());
+        }
+        checkpoint.save(snapshot);
+    }
+
+    // ---------- reading
+
+    /** Shared state of one run. */
+    private static final class Run {
+        JsonlWriter out;
+        final Semaphore permits;
+        final AtomicReference<IOException> writeError = new AtomicReference<>();
+        final LongAdder lines = new LongAdder();
+        final LongAdder scored = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder skipped = new LongAdder();
+        final LongAdder alreadyDone = new LongAdder();
+
+        Run(int maxInFlight) { this.permits = new Semaphore(maxInFlight); }
+    }
+
+    /** Splits [0, size) into about {@code count} ranges, each starting at the beginning of a line. */
+    static List<long[]> split(FileChannel ch, int count) throws IOException {
+        long size = ch.size();
+        List<long[]> ranges = new ArrayList<>();
+        if (size == 0) return ranges;
+        int n = (int) Math.max(count, (size + MAX_SEGMENT_BYTES - 1) / MAX_SEGMENT_BYTES);
+        long target = size / n;
+        long start = 0;
+        for (int i = 1; i < n && start < size; i++) {
+            long cut = lineStartAtOrAfter(ch, Math.max(start, i * target), size);
+            if (cut > start) {
+                ranges.add(new long[]{start, cut});
+                start = cut;
+            }
+        }
+        if (start < size) ranges.add(new long[]{start, size});
+        return ranges;
+    }
+
+    private static long lineStartAtOrAfter(FileChannel ch, long pos, long size) throws IOException {
+        if (pos == 0) return 0;
+        ByteBuffer buf = ByteBuffer.allocate(8192);
+        long p = pos - 1; // if the previous byte ends a line, pos itself is a line start
+        while (p < size) {
+            buf.clear();
+            int read = ch.read(buf, p);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (buf.get(i) == '\n') return p + i + 1;
+            }
+            p += read;
+        }
+        return size;
+    }
+
+    private void scan(FileChannel ch, long start, long end, BulkCheckpoint.Segment progress, Run run) throws IOException {
+        if (end - start > Integer.MAX_VALUE) throw new IOException("segment at " + start + " too large: line over 1 GiB?");
+        MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        int limit = buf.limit();
+        byte[] line = new byte[8192];
+        int pos = (progress == null) ? 0 : (int) (progress.watermark() - start);
+        while (pos < limit) {
+            if (run.writeError.get() != null) return;
+            int eol = pos;
+            while (eol < limit && buf.get(eol) != '\n') eol++;
+            int len = eol - pos;
+            if (len > 0 && buf.get(eol - 1) == '\r') len--;
+            if (len > 0) {
+                if (line.length < len) line = new byte[Math.max(len, line.length * 2)];
+                buf.get(pos, line, 0, len);
+                String json = new String(line, 0, len, StandardCharsets.UTF_8);
+                if (!json.isBlank()) {
+                    long seq = (progress == null) ? 0L : progress.issue(start + Math.min(eol + 1, limit));
+                    if (seq < 0) run.alreadyDone.increment();
+                    else submit(start + pos, json, progress, seq, run);
+                }
+            }
+            pos = eol + 1;
+        }
+        if (progress != null) progress.scanned();
+    }
+
+    private void submit(long offset, String json, BulkCheckpoint.Segment progress, long seq, Run run) throws IOException {
+        run.lines.increment();
+        String[] idText = parseLine(json);
+        String id = idText[0], text = idText[1];
+        if (text == null || text.isEmpty()) {
+            run.skipped.increment();
+            emit(run, progress, seq, errorRecord(offset, id, "no '" + textField + "' field", 0));
+            return;
+        }
+        try {
+            run.permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for a request slot");
+        }
+        CompletableFuture<PerspectiveScore> f;
+        try {
+            f = client.analyzeAsync(text, attributes, options);
+        } catch (RuntimeException e) {
+            run.permits.release();
+            throw e;
+        }
+        f.whenComplete((score, err) -> {
+            try {
+                // every seq must reach emit(), or the checkpoint watermark stalls at it
+                byte[] record = null;
+                Throwable failure = err;
+                if (failure == null) {
+                    try {
+                        record = scoreRecord(offset, id, score);
+                    } catch (RuntimeException e) {
+                        failure = e;
+                    }
+                }
+                if (record != null) {
+                    run.scored.increment();
+                } else {
+                    run.failed.increment();
+                    Throwable t = PerspectiveClient.unwrap(failure);
+                    int status = (t instanceof PerspectiveApiException) ? ((PerspectiveApiException) t).getStatusCode() : 0;
+                    record = errorRecord(offset, id, t.getMessage() == null ? t.getClass().getName() : t.getMessage(), status);
+                }
+                emit(run, progress, seq, record);
+            } catch (IOException e) {
+                run.writeError.compareAndSet(null, e);
+            } finally {
+                run.permits.release();
+            }
+        });
+    }
+
+    /** Writes a record and, under the same lock, marks it done so checkpoints never run ahead of the output. */
+    private static void emit(Run run, BulkCheckpoint.Segment progress, long seq, byte[] record) throws IOException {
+        if (progress == null) {
+            run.out.write(record);
+            return;
+        }
+        synchronized (run.out) {
+            run.out.write(record);
+            progress.complete(seq);
+        }
+    }
+
+    /** {id, text} from one input line; either may be null (also for malformed lines). */
+    private String[] parseLine(String json) {
+        String[] idText = new String[2];
+        try (JsonReader r = new JsonReader(new StringReader(json))) {
+            if (r.peek() != JsonToken.BEGIN_OBJECT) return idText;
+            r.beginObject();
+            while (r.hasNext()) {
+                String name = r.nextName();
+                JsonToken t = r.peek();
+                boolean scalar = (t == JsonToken.STRING || t == JsonToken.NUMBER);
+                if (scalar && name.equals(textField)) idText[1] = r.nextString();
+                else if (scalar && name.equals(idField)) idText[0] = r.nextString();
+                else r.skipValue();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // malformed line: report whatever was found
+        }
+        return idText;
+    }
+
+    // ---------- output records
+
+    private static byte[] scoreRecord(long offset, String id, PerspectiveScore score) {
+        return record(offset, id, w -> {
+            w.name("scores").beginObject();
+            for (Map.Entry<String, Double> e : score.getScores().entrySet()) scoreValue(w.name(e.getKey()), e.getValue());
+            w.endObject();
+            if (!score.getSpanAnnotations().isEmpty()) {
+                w.name("spans").beginArray();
+                for (PerspectiveScore.SpanAnnotation s : score.getSpanAnnotations()) {
+                    w.beginObject().name("attribute").value(s.getAttribute())
+                            .name("begin").value(s.getBegin()).name("end").value(s.getEnd())
+                            .name("score");
+                    scoreValue(w, s.getScore()).endObject();
+                }
+                w.endArray();
+            }
+        });
+    }
+
+    /** Requested attributes the API left out score NaN, which JSON cannot represent: written as null. */
+    private static JsonWriter scoreValue(JsonWriter w, double v) throws IOException {
+        return Double.isFinite(v) ? w.value(v) : w.nullValue();
+    }
+
+    private static byte[] errorRecord(long offset, String id, String message, int status) {
+        return record(offset, id, w -> w.name("error").value(message).name("status").value(status));
+    }
+
+    @FunctionalInterface
+    private interface Fields {
+        void write(JsonWriter w) throws IOException;
+    }
+
+    private static byte[] record(long offset, String id, Fields fields) {
+        StringWriter sw = new StringWriter(128);
+        try (JsonWriter w = new JsonWriter(sw)) {
+            w.beginObject().name("offset").value(offset);
+            if (id != null) w.name("id").value(id);
+            fields.write(w);
+            w.endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringWriter does not throw
+        }
+        return sw.append('\n').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private static void await(Future<?> f) throws IOException {
+        try {
+            f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while scanning input");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    // ---------- summary
+
+    public static final class Summary {
+        private final long lines;
+        private final long scored;
+        private final long failed;
+        private final long skipped;
+        private final long alreadyDone;
+        private final Duration elapsed;
+
+        Summary(long lines, long scored, long failed, long skipped, long alreadyDone, Duration elapsed) {
+            this.lines = lines;
+            this.scored = scored;
+            this.failed = failed;
+            this.skipped = skipped;
+            this.alreadyDone = alreadyDone;
+            this.elapsed = elapsed;
+        }
+
+        /** Non-blank input lines processed by this run. */
+        public long getLines() { return lines; }
+
+        public long getScored() { return scored; }
+
+        /** Lines whose request failed (after retries). */
+        public long getFailed() { return failed; }
+
+        /** Lines without a usable text field. */
+        public long getSkipped() { return skipped; }
+
+        /** Lines passed over because the checkpoint marked them done. */
+        public long getAlreadyDone() { return alreadyDone; }
+
+        public Duration getElapsed() { return elapsed; }
+
+        @Override public String toString() {
+            double secs = Math.max(1e-9, elapsed.toNanos() / 1e9);
+            return String.format(Locale.ROOT, "lines=%d scored=%d failed=%d skipped=%d alreadyDone=%d elapsed=%.1fs rate=%.1f/s",
+                    lines, scored, failed, skipped, alreadyDone, secs, scored / secs);
+        }
+    }
+
+    // ---------- builder
+
+    public static final class Builder {
+        private final PerspectiveClient client;
+        private final Path input;
+        private final Path output;
+        private List<Attribute> attributes = Collections.singletonList(Attribute.TOXICITY);
+        private PerspectiveClient.AnalyzeOptions options;
+        private String textField = "text";
+        private String idField = "id";
+        private int segments = Runtime.getRuntime().availableProcessors();
+        private int maxInFlight = 64;
+        private Path checkpointFile;
+        private Duration checkpointInterval = Duration.ofSeconds(10);
+
+        private Builder(PerspectiveClient client, Path input, Path output) {
+            this.client = Objects.requireNonNull(client, "client");
+            this.input = Objects.requireNonNull(input, "input");
+            this.output = Objects.requireNonNull(output, "output");
+        }
+
+        /** Attributes requested for every line (default TOXICITY). */
+        public Builder attributes(List<Attribute> v) { this.attributes = v; return this; }
+
+        public Builder options(PerspectiveClient.AnalyzeOptions v) { this.options = v; return this; }
+
+        /** Name of the field holding the comment text (default "text"). */
+        public Builder textField(String v) { this.textField = Objects.requireNonNull(v); return this; }
+
+        /** Name of the field copied to the output as "id" (default "id"). */
+        public Builder idField(String v) { this.idField = Objects.requireNonNull(v); return this; }
+
+        /** Input segments read in parallel (default: available processors). */
+        public Builder segments(int v) { this.segments = v; return this; }
+
+        /** Requests outstanding at once across all segments (default 64). */
+        public Builder maxInFlight(int v) { this.maxInFlight = v; return this; }
+
+        /** Save progress to this file and resume from it if it exists (default: no checkpoints). */
+        public Builder checkpoint(Path v) { this.checkpointFile = v; return this; }
+
+        /** How often progress is saved; each save fsyncs the output (default 10s). */
+        public Builder checkpointInterval(Duration v) {
+            if (v.isNegative() || v.isZero()) throw new IllegalArgumentException("checkpointInterval must be > 0");
+            this.checkpointInterval = v;
+            return this;
+        }
+
+        public BulkJob build() { return new BulkJob(this); }
+    }
+
+    // ---------- CLI
+
+    private static final String USAGE = String.join("\n",
+            "Usage: BulkJob --input <in.jsonl> --output <out.jsonl> [options]",
+            "  --attributes TOXICITY,INSULT   attributes to request (default TOXICITY)",
+            "  --language <code>              comment language (default en)",
+            "  --qps <n>                      client-side request rate (default 1, the default API quota)",
+            "  --concurrency <n>              requests in flight (default 64)",
+            "  --segments <n>                 parallel input segments (default: CPUs)",
+            "  --text-field <name>            input text field (default text)",
+            "  --id-field <name>              input id field (default id)",
+            "  --endpoint <url>               API endpoint (default: Google)",
+            "  --checkpoint <file>            save progress there and resume from it",
+            "The API key is read from the PERSPECTIVE_API_KEY environment variable.");
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> opts = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) usage("bad argument: " + args[i]);
+            opts.put(args[i].substring(2), args[++i]);
+        }
+        String key = System.getenv("PERSPECTIVE_API_KEY");
+        if (key == null || key.isEmpty()) usage("PERSPECTIVE_API_KEY is not set");
+        if (!opts.containsKey("input") || !opts.containsKey("output")) usage("--input and --output are required");
+
+        List<Attribute> attrs = new ArrayList<>();
+        for (String name : opts.getOrDefault("attributes", "TOXICITY").split(",")) {
+            Attribute a = Attribute.fromString(name.trim());
+            if (a == null) usage("unknown attribute: " + name);
+            attrs.add(a);
+        }
+
+        PerspectiveClient client = PerspectiveClient.builder(key)
+                .endpoint(opts.get("endpoint"))
+                .rateLimiter(RateLimiter.perSecond(Double.parseDouble(opts.getOrDefault("qps", "1"))))
+                .retryPolicy(RetryPolicy.defaults())
+                .build();
+        Builder b = builder(client, Paths.get(opts.get("input")), Paths.get(opts.get("output")))
+                .attributes(attrs)
+                .options(new PerspectiveClient.AnalyzeOptions().language(opts.getOrDefault("language", "en")))
+                .textField(opts.getOrDefault("text-field", "text"))
+                .idField(opts.getOrDefault("id-field", "id"))
+                .maxInFlight(Integer.parseInt(opts.getOrDefault("concurrency", "64")));
+        if (opts.containsKey("segments")) b.segments(Integer.parseInt(opts.get("segments")));
+        if (opts.containsKey("checkpoint")) b.checkpoint(Paths.get(opts.get("checkpoint")));
+
+        System.err.println(b.build().run());
+    }
+
+    private static void usage(String error) {
+        System.err.println(error);
+        System.err.println(USAGE);
+        System.exit(2);
+    }
+}
@@ -0,0 +1,44 @@
+package com.computerwhz;
+
+import java.util.Objects;
+
+/**
+ * Outcome of scoring one input of a bulk run (see {@link PerspectiveClient#analyzeAll}).
+ * Exactly one of {@link #getScore()} / {@link #getError()} is non-null.
+ */
+public final class BulkResult {
+
+    /** Zero-based position of the text in the input. */
+    private final long index;
+
+    private final String text;
+    private final PerspectiveScore score;
+    private final Throwable error;
+
+    BulkResult(long index, String text, PerspectiveScore score, Throwable error) {
+        if ((score == null) == (error == null)) throw new IllegalArgumentException("exactly one of score/error");
+        this.index = index;
+        this.text = text;
+        this.score = score;
+        this.error = error;
+    }
+
+    public long getIndex() { return index; }
+
+    public String getText() { return text; }
+
+    /** Score, or null if this input failed. */
+    public PerspectiveScore getScore() { return score; }
+
+    /** Failure cause, or null if this input was scored. */
+    public Throwable getError() { return error; }
+
+    public boolean isSuccess() { return error == null; }
+
+    @Override public String toString() {
+        return "BulkResult{" +
+                "index=" + index +
+                (isSuccess() ? ", score=" + score : ", error=" + Objects.toString(error)) +
+                '}';
+    }
+}
@@ -0,0 +1,98 @@
+package com.computerwhz;
+
+/**
+ * Where the time went in one HTTP request (see {@link LatencyBreakdown}). All durations are in
+ * nanoseconds; a phase that did not happen (e.g. DNS on a pooled connection) is -1.
+ */
+public final class CallTiming {
+
+    private final long connectionAcquireNanos;
+    private final long dnsNanos;
+    private final long connectNanos;
+    private final long tlsNanos;
+    private final long serializeNanos;
+    private final long serverNanos;
+    private final long parseNanos;
+    private final long totalNanos;
+    private final boolean connectionReused;
+    private final int statusCode;
+    private final long requestBytes;
+    private final long responseBytes;
+    private final Throwable error;
+
+    CallTiming(long connectionAcquireNanos, long dnsNanos, long connectNanos, long tlsNanos, long serializeNanos,
+               long serverNanos, long parseNanos, long totalNanos, boolean connectionReused, int statusCode,
+               long requestBytes, long responseBytes, Throwable error) {
+        this.connectionAcquireNanos = connectionAcquireNanos;
+        this.dnsNanos = dnsNanos;
+        this.connectNanos = connectNanos;
+        this.tlsNanos = tlsNanos;
+        this.serializeNanos = serializeNanos;
+        this.serverNanos = serverNanos;
+        this.parseNanos = parseNanos;
+        this.totalNanos = totalNanos;
+        this.connectionReused = connectionReused;
+        this.statusCode = statusCode;
+        this.requestBytes = requestBytes;
+        this.responseBytes = responseBytes;
+        this.error = error;
+    }
+
+    /** Call start until a connection was ready, including any DNS, connect and TLS time. */
+    public long getConnectionAcquireNanos() { return connectionAcquireNanos; }
+
+    public long getDnsNanos() { return dnsNanos; }
+
+    /** TCP connect, including the TLS handshake. */
+    public long getConnectNanos() { return connectNanos; }
+
+    public long getTlsNanos() { return tlsNanos; }
+
+    /** Serializing and writing the payload (the two are one streaming step). */
+    public long getSerializeNanos() { return serializeNanos; }
+
+    /** Request fully sent until response headers received: network round trip plus server time. */
+    public long getServerNanos() { return serverNanos; }
+
+    /** Reading and parsing the response body. */
+    public long getParseNanos() { return parseNanos; }
+
+    /** Request start until parsed or failed. */
+    public long getTotalNanos() { return totalNanos; }
+
+    public boolean isConnectionReused() { return connectionReused; }
+
+    /** HTTP status, or 0 if no response was received. */
+    public int getStatusCode() { return statusCode; }
+
+    public long getRequestBytes() { return requestBytes; }
+
+    public long getResponseBytes() { return responseBytes; }
+
+    /** Failure cause, or null if the request succeeded. */
+    public Throwable getError() { return error; }
+
+    public boolean isSuccess() { return error == null; }
+
+    @Override public String toString() {
+        return "CallTiming{" +
+                "status=" + statusCode +
+                ", totalMs=" + millis(totalNanos) +
+                ", acquireMs=" + millis(connectionAcquireNanos) +
+                ", dnsMs=" + millis(dnsNanos) +
+                ", connectMs=" + millis(connectNanos) +
+                ", tlsMs=" + millis(tlsNanos) +
+                ", serializeMs=" + millis(serializeNanos) +
+                ", serverMs=" + millis(serverNanos) +
+                ", parseMs=" + millis(parseNanos) +
+                ", reused=" + connectionReused +
+                ", requestBytes=" + requestBytes +
+                ", responseBytes=" + responseBytes +
+                (error == null ? "" : ", error=" + error) +
+                '}';
+    }
+
+    private static String millis(long nanos) {
+        return nanos < 0 ? "-" : String.format(java.util.Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+}
@@ -0,0 +1,233 @@
+package com.computerwhz;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Circuit breaker in front of the Perspective endpoint.
+ *
+ * - CLOSED: calls flow; outcomes of the last {@code windowSize} calls are kept in a ring buffer.
+ *   Once at least {@code minimumCalls} are recorded and the failure rate or the slow-call rate
+ *   reaches its threshold, the breaker opens.
+ * - OPEN: calls are rejected immediately with {@link CircuitOpenException} for {@code openDuration}.
+ * - HALF_OPEN: up to {@code halfOpenCalls} trial calls are let through. If all succeed (and are
+ *   not slow) the breaker closes with a fresh window; any failure re-opens it.
+ *
+ * Every state change starts a new generation. {@link #acquirePermission} returns a token naming the
+ * generation (and whether the call is a half-open trial); outcomes reported with a token from an
+ * earlier generation are ignored, so a call admitted while closed cannot close or re-open the
+ * breaker when it finishes during a later half-open phase.
+ *
+ * The permission check on the closed path is two volatile reads.
+ */
+public final class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final int minimumCalls;
+    private final long openNanos;
+    private final int halfOpenCalls;
+
+    private volatile State state = State.CLOSED;
+    private volatile long generation;
+    private volatile long openedAtNanos;
+
+    /** Half-open: trial permits handed out / trial calls succeeded (guarded by this). */
+    private int trialPermits;
+    private int trialSuccesses;
+
+    // sliding window (guarded by this)
+    private final byte[] window;
+    private int windowPos;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+
+    private CircuitBreaker(Builder b) {
+        if (!(b.failureRateThreshold > 0 && b.failureRateThreshold <= 1)
+                || !(b.slowCallRateThreshold > 0 && b.slowCallRateThreshold <= 1)) {
+            throw new IllegalArgumentException("rate thresholds must be in (0, 1]");
+        }
+        if (b.windowSize < 1 || b.minimumCalls < 1 || b.halfOpenCalls < 1) {
+            throw new IllegalArgumentException("windowSize, minimumCalls and halfOpenCalls must be >= 1");
+        }
+        this.failureRateThreshold = b.failureRateThreshold;
+        this.slowCallRateThreshold = b.slowCallRateThreshold;
+        this.slowCallNanos = b.slowCallDuration.toNanos();
+        this.minimumCalls = Math.min(b.minimumCalls, b.windowSize);
+        this.openNanos = b.openDuration.toNanos();
+        this.halfOpenCalls = b.halfOpenCalls;
+        this.window = new byte[b.windowSize];
+    }
+
+    /** Defaults: 50% failures or 80% calls slower than 5s over the last 100 calls (min 20); open for 30s; 5 trial calls. */
+    public static CircuitBreaker defaults() { return builder().build(); }
+
+    public static Builder builder() { return new Builder(); }
+
+    // ---------- metrics
+
+    public State getState() {
+        State s = state;
+        return (s == State.OPEN && openElapsed()) ? State.HALF_OPEN : s;
+    }
+
+    /** Failure rate over the current window, or -1 if fewer than minimumCalls were recorded. */
+    public synchronized double getFailureRate() {
+        return recorded < minimumCalls ? -1 : (double) failures / recorded;
+    }
+
+    /** Slow-call rate over the current window, or -1 if fewer than minimumCalls were recorded. */
+    public synchronized double getSlowCallRate() {
+        return recorded < minimumCalls ? -1 : (double) slowCalls / recorded;
+    }
+
+    // ---------- call protocol
+
+    /**
+     * Asks to make a call. On success the caller must report the outcome, passing the returned
+     * token, with exactly one of {@link #onSuccess}, {@link #onFailure} or {@link #onIgnored}.
+     */
+    public long acquirePermission() throws CircuitOpenException {
+        long gen = generation; // read before state: a change in between leaves a stale, ignored token
+        if (state == State.CLOSED) return gen << 1;
+        return acquireSlow();
+    }
+
+    private synchronized long acquireSlow() throws CircuitOpenException {
+        if (state == State.OPEN) {
+            if (!openElapsed()) throw new CircuitOpenException(State.OPEN);
+            toHalfOpen();
+        }
+        if (state == State.CLOSED) return generation << 1;
+        if (trialPermits >= halfOpenCalls) throw new CircuitOpenException(State.HALF_OPEN);
+        trialPermits++;
+        return (generation << 1) | 1L;
+    }
+
+    public void onSuccess(long permit, long durationNanos) {
+        record(permit, durationNanos >= slowCallNanos ? SLOW : 0);
+    }
+
+    /** Upstream failure: 5xx, timeout or connection error. */
+    public void onFailure(long permit, long durationNanos) {
+        record(permit, (byte) (FAILED | (durationNanos >= slowCallNanos ? SLOW : 0)));
+    }
+
+    /** The call says nothing about upstream health (cancelled, client error); frees its trial permit. */
+    public synchronized void onIgnored(long permit) {
+        if (isTrial(permit) && (permit >>> 1) == generation) trialPermits--;
+    }
+
+    // ---------- transitions
+
+    private boolean openElapsed() {
+        return System.nanoTime() - openedAtNanos >= openNanos;
+    }
+
+    private static boolean isTrial(long permit) {
+        return (permit & 1L) != 0;
+    }
+
+    private void toHalfOpen() {
+        trialPermits = 0;
+        trialSuccesses = 0;
+        transition(State.HALF_OPEN);
+    }
+
+    private synchronized void record(long permit, byte outcome) {
+        if ((permit >>> 1) != generation) return; // admitted before the last state change
+        if (isTrial(permit)) {
+            if (outcome != 0) {
+                open();
+            } else if (++trialSuccesses >= halfOpenCalls) {
+                resetWindow();
+                transition(State.CLOSED);
+            }
+            return;
+        }
+
+        byte old = window[windowPos];
+        if (recorded == window.length) {
+            if ((old & FAILED) != 0) failures--;
+            if ((old & SLOW) != 0) slowCalls--;
+        } else {
+            recorded++;
+        }
+        window[windowPos] = outcome;
+        windowPos = (windowPos + 1) % window.length;
+        if ((outcome & FAILED) != 0) failures++;
+        if ((outcome & SLOW) != 0) slowCalls++;
+
+        if (recorded >= minimumCalls
+                && ((double) failures / recorded >= failureRateThreshold
+                || (double) slowCalls / recorded >= slowCallRateThreshold)) {
+            open();
+        }
+    }
+
+    private void open() {
+        openedAtNanos = System.nanoTime();
+        transition(State.OPEN);
+    }
+
+    /** Bumps the generation before publishing the state, so a reader that sees the new state sees the new generation. */
+    private void transition(State s) {
+        generation++;
+        state = s;
+    }
+
+    private void resetWindow() {
+        windowPos = 0;
+        recorded = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+
+    @Override public String toString() {
+        return "CircuitBreaker{" + getState() + '}';
+    }
+
+    // ---------- Builder
+
+    public static final class Builder {
+        private double failureRateThreshold = 0.5;
+        private double slowCallRateThreshold = 0.8;
+        private Duration slowCallDuration = Duration.ofSeconds(5);
+        private int windowSize = 100;
+        private int minimumCalls = 20;
+        private Duration openDuration = Duration.ofSeconds(30);
+        private int halfOpenCalls = 5;
+
+        private Builder() {}
+
+        /** Fraction (0..1] of failed calls that opens the breaker. */
+        public Builder failureRateThreshold(double v) { this.failureRateThreshold = v; return this; }
+
+        /** Fraction (0..1] of slow calls that opens the breaker. */
+        public Builder slowCallRateThreshold(double v) { this.slowCallRateThreshold = v; return this; }
+
+        /** Calls taking at least this long count as slow. */
+        public Builder slowCallDuration(Duration v) { this.slowCallDuration = Objects.requireNonNull(v); return this; }
+
+        /** Number of most recent calls the rates are computed over. */
+        public Builder windowSize(int v) { this.windowSize = v; return this; }
+
+        /** Calls needed in the window before rates are evaluated. */
+        public Builder minimumCalls(int v) { this.minimumCalls = v; return this; }
+
+        /** How long to reject calls before probing again. */
+        public Builder openDuration(Duration v) { this.openDuration = Objects.requireNonNull(v); return this; }
+
+        /** Trial calls permitted while half-open. */
+        public Builder halfOpenCalls(int v) { this.halfOpenCalls = v; return this; }
+
+        public CircuitBreaker build() { return new CircuitBreaker(this); }
+    }
+}
@@ -0,0 +1,13 @@
+package com.computerwhz;
+
+import java.io.IOException;
+
+/** Thrown without contacting the API while the {@link CircuitBreaker} is open. */
+public class CircuitOpenException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CircuitOpenException(CircuitBreaker.State state) {
+        super("Perspective API circuit breaker is " + state + "; call not permitted");
+    }
+}
@@ -0,0 +1,213 @@
+package com.computerwhz;
+
+import okhttp3.HttpUrl;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Spreads requests over several equivalent endpoints (e.g. regional proxies in front of the API).
+ * Register with {@link PerspectiveClient.Builder#router}.
+ *
+ * - Selection is power-of-two-choices: two random healthy endpoints are compared and the one with
+ *   the lower {@code latency EWMA x (in-flight + 1)} wins, so a slow endpoint sheds load quickly
+ *   without all clients stampeding to the single fastest one.
+ * - The EWMA decays with time ({@code decay} is its time constant) and jumps straight up on a
+ *   slower sample, so a degrading endpoint is noticed after one slow response. Only successful
+ *   responses can lower it: an error (error status, timeout) counts as at least twice the current
+ *   EWMA, so an endpoint that fails fast does not look fast.
+ * - A connection failure (refused, no route, unknown host, or a connect timeout or any other
+ *   error before the connection was up) marks the endpoint down for {@code downtime} and the
+ *   request fails over to another endpoint at once; it never reached a server, so this does not
+ *   count as a retry.
+ */
+public final class EndpointRouter {
+
+    /** An error response weighs at least this many times the endpoint's current latency EWMA. */
+    private static final double ERROR_PENALTY = 2.0;
+
+    private final List<Endpoint> endpoints;
+    private final double decayNanos;
+    private final long downtimeNanos;
+    private final LongAdder failovers = new LongAdder();
+
+    private EndpointRouter(Builder b) {
+        if (b.endpoints.isEmpty()) throw new IllegalArgumentException("at least one endpoint is required");
+        this.endpoints = Collections.unmodifiableList(new ArrayList<>(b.endpoints));
+        this.decayNanos = b.decay.toNanos();
+        this.downtimeNanos = b.downtime.toNanos();
+    }
+
+    public static Builder builder() { return new Builder(); }
+
+    public List<Endpoint> getEndpoints() { return endpoints; }
+
+    /** Requests re-sent to another endpoint after a connection failure. */
+    public long getFailoverCount() { return failovers.sum(); }
+
+    int size() { return endpoints.size(); }
+
+    /** First endpoint; used for URLs built before an endpoint is chosen per attempt. */
+    String primaryEndpoint() { return endpoints.get(0).url.toString(); }
+
+    /** Chooses an endpoint and counts the request as in flight there; pair with {@link #complete}. */
+    Endpoint pick(Endpoint exclude) {
+        long now = System.nanoTime();
+        List<Endpoint> up = new ArrayList<>(endpoints.size());
+        for (Endpoint e : endpoints) if (e != exclude && !e.isDown(now)) up.add(e);
+
+        Endpoint chosen;
+        if (up.isEmpty()) {
+            chosen = null; // everything down: try the one that comes back first
+            for (Endpoint e : endpoints) {
+                if (e != exclude && (chosen == null || e.downUntil - chosen.downUntil < 0)) chosen = e;
+            }
+            if (chosen == null) chosen = exclude;
+        } else if (up.size() == 1) {
+            chosen = up.get(0);
+        } else {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            int i = rnd.nextInt(up.size());
+            int j = rnd.nextInt(up.size() - 1);
+            if (j >= i) j++;
+            Endpoint a = up.get(i), b = up.get(j);
+            chosen = (a.cost() <= b.cost()) ? a : b;
+        }
+        chosen.inFlight.incrementAndGet();
+        chosen.requests.increment();
+        return chosen;
+    }
+
+    /**
+     * Ends a request on {@code e}: updates its latency (penalized on error), or marks it down on a
+     * connection failure.
+     *
+     * @param connected whether a connection to the endpoint was established for this request
+     */
+    void complete(Endpoint e, long rttNanos, Throwable err, boolean connected) {
+        e.inFlight.decrementAndGet();
+        if (PerspectiveClient.unwrap(err) instanceof CancellationException) return; // says nothing about latency
+        if (err == null) {
+            e.observe(rttNanos, decayNanos);
+        } else if (isConnectFailure(err, connected)) {
+            e.connectFailures.increment();
+            e.downUntil = System.nanoTime() + downtimeNanos;
+        } else {
+            e.penalize(rttNanos);
+        }
+    }
+
+    /** Whether {@code err} is worth failing over for, and records the failover if so. */
+    boolean failover(Throwable err, boolean connected) {
+        if (!isConnectFailure(err, connected)) return false;
+        failovers.increment();
+        return true;
+    }
+
+    /**
+     * The request never reached a server. OkHttp reports a connect timeout as a plain
+     * SocketTimeoutException, so any failure before the connection was up counts.
+     */
+    static boolean isConnectFailure(Throwable t, boolean connected) {
+        t = PerspectiveClient.unwrap(t);
+        if (t instanceof CancellationException) return false;
+        return !connected
+                || t instanceof ConnectException || t instanceof NoRouteToHostException || t instanceof UnknownHostException;
+    }
+
+    /** One endpoint and its live state. */
+    public static final class Endpoint {
+        private final HttpUrl url;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder connectFailures = new LongAdder();
+        private volatile long downUntil = System.nanoTime();
+
+        /** Latency EWMA in nanos (0 until the first response) and when it was last updated. */
+        private double ewmaNanos;
+        private long ewmaAt;
+
+        private Endpoint(HttpUrl url) { this.url = url; }
+
+        /** Endpoint URL with the given key. */
+        HttpUrl url(String apiKey) {
+            return url.newBuilder().setQueryParameter("key", apiKey).build();
+        }
+
+        private synchronized double cost() {
+            return ewmaNanos * (inFlight.get() + 1);
+        }
+
+        private synchronized void observe(long rttNanos, double decayNanos) {
+            long now = System.nanoTime();
+            if (ewmaNanos == 0 || rttNanos > ewmaNanos) {
+                ewmaNanos = rttNanos; // peak: react to slowdowns at once
+            } else {
+                double w = Math.exp(-(now - ewmaAt) / decayNanos);
+                ewmaNanos = ewmaNanos * w + rttNanos * (1 - w);
+            }
+            ewmaAt = now;
+        }
+
+        /** Error response: raises the EWMA (never lowers it), as a peak sample does. */
+        private synchronized void penalize(long rttNanos) {
+            ewmaNanos = Math.max(rttNanos, ewmaNanos) * ERROR_PENALTY;
+            ewmaAt = System.nanoTime();
+        }
+
+        private boolean isDown(long now) { return downUntil - now > 0; }
+
+        public String getUrl() { return url.toString(); }
+
+        public int getInFlight() { return inFlight.get(); }
+
+        public long getRequestCount() { return requests.sum(); }
+
+        public long getConnectFailureCount() { return connectFailures.sum(); }
+
+        public synchronized Duration getLatencyEwma() { return Duration.ofNanos((long) ewmaNanos); }
+
+        public boolean isDown() { return isDown(System.nanoTime()); }
+
+        @Override public String toString() {
+            return "Endpoint{" + url + ", inFlight=" + getInFlight() + ", ewma=" + getLatencyEwma().toMillis()
+                    + "ms" + (isDown() ? ", down" : "") + '}';
+        }
+    }
+
+    public static final class Builder {
+        private final List<Endpoint> endpoints = new ArrayList<>();
+        private Duration decay = Duration.ofSeconds(10);
+        private Duration downtime = Duration.ofSeconds(5);
+
+        private Builder() {}
+
+        /** Adds an endpoint, e.g. {@code https://proxy-eu.example.com/v1alpha1/comments:analyze}. */
+        public Builder addEndpoint(String url) {
+            endpoints.add(new Endpoint(Objects.requireNonNull(HttpUrl.parse(url), "invalid endpoint URL: " + url)));
+            return this;
+        }
+
+        /** Time constant of the latency EWMA (default 10s). */
+        public Builder decay(Duration v) {
+            if (v.isNegative() || v.isZero()) throw new IllegalArgumentException("decay must be > 0");
+            this.decay = v;
+            return this;
+        }
+
+        /** How long an endpoint is avoided after a connection failure (default 5s). */
+        public Builder downtime(Duration v) { this.downtime = Objects.requireNonNull(v); return this; }
+
+        public EndpointRouter build() { return new EndpointRouter(this); }
+    }
+}
@@ -0,0 +1,75 @@
+package com.computerwhz;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-min sketch of 4-bit counters estimating how often a key was seen recently (TinyLFU).
+ * All counters are halved after {@code 10 x capacity} increments so old popularity fades.
+ * Thread-safe; counts are approximate by design.
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    /** 16 counters per long. */
+    private final AtomicLongArray table;
+    private final int tableMask;
+    private final int sampleSize;
+    private final AtomicInteger additions = new AtomicInteger();
+
+    FrequencySketch(long capacity) {
+        int longs = (int) Math.min(1 << 24, Math.max(8, Long.highestOneBit(Math.max(1, capacity) - 1) << 1));
+        this.table = new AtomicLongArray(longs);
+        this.tableMask = longs - 1;
+        this.sampleSize = (int) Math.min(Integer.MAX_VALUE / 2, Math.max(10, 10 * capacity));
+    }
+
+    /** Estimated recent frequency, 0..15. */
+    int frequency(int hash) {
+        int min = 15;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long h = spread(hash, i);
+            int shift = (int) (h & 15) << 2;
+            int count = (int) ((table.get(index(h)) >>> shift) & 15L);
+            min = Math.min(min, count);
+        }
+        return min;
+    }
+
+    void increment(int hash) {
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long h = spread(hash, i);
+            added |= incrementAt(index(h), (int) (h & 15) << 2);
+        }
+        if (added && additions.incrementAndGet() >= sampleSize) reset();
+    }
+
+    private boolean incrementAt(int idx, int shift) {
+        long mask = 15L << shift;
+        while (true) {
+            long v = table.get(idx);
+            if ((v & mask) == mask) return false; // saturated
+            if (table.compareAndSet(idx, v, v + (1L << shift))) return true;
+        }
+    }
+
+    private void reset() {
+        additions.set(0);
+        for (int i = 0; i < table.length(); i++) {
+            table.getAndUpdate(i, v -> (v >>> 1) & RESET_MASK);
+        }
+    }
+
+    private int index(long h) {
+        return (int) (h >>> 32) & tableMask;
+    }
+
+    private static long spread(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        return h ^ (h >>> 29);
+    }
+}
@@ -0,0 +1,152 @@
+package com.computerwhz;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Opt-in request hedging for {@link PerspectiveClient}: if an attempt has not completed after
+ * the hedge delay, an identical second request is sent; the first to succeed wins and the other
+ * is cancelled.
+ *
+ * - The delay is either fixed or a percentile of recently observed latencies (falling back to the
+ *   fixed delay until enough samples exist).
+ * - A budget caps hedges at {@code maxHedgeRatio} of primary requests (plus a small burst),
+ *   so a slow backend does not double the quota spend.
+ *
+ * Holds live latency and budget state: give each client its own instance.
+ */
+public final class HedgePolicy {
+
+    private static final int SAMPLES = 1024;
+    private static final int RECOMPUTE_EVERY = 128;
+    private static final int MIN_SAMPLES = 100;
+    /** Budget unit: one hedge costs this many credits. */
+    private static final long CREDITS_PER_HEDGE = 1000;
+
+    private final long fixedDelayNanos;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final double maxHedgeRatio;
+    private final long maxCredits;
+
+    private final AtomicLongArray latencies = new AtomicLongArray(SAMPLES);
+    private final AtomicInteger recorded = new AtomicInteger();
+    private volatile long percentileDelayNanos = -1L;
+
+    private final AtomicLong credits;
+    private final AtomicLong hedgesSent = new AtomicLong();
+
+    private HedgePolicy(Builder b) {
+        if (b.delay.isNegative()) throw new IllegalArgumentException("delay must be >= 0");
+        if (!Double.isNaN(b.percentile) && !(b.percentile > 0 && b.percentile < 1)) {
+            throw new IllegalArgumentException("percentile must be in (0, 1)");
+        }
+        if (!(b.maxHedgeRatio >= 0 && b.maxHedgeRatio <= 1)) throw new IllegalArgumentException("maxHedgeRatio must be in [0, 1]");
+        if (b.burst < 0) throw new IllegalArgumentException("burst must be >= 0");
+        this.fixedDelayNanos = b.delay.toNanos();
+        this.percentile = b.percentile;
+        this.minDelayNanos = b.minDelay.toNanos();
+        this.maxHedgeRatio = b.maxHedgeRatio;
+        this.maxCredits = b.burst * CREDITS_PER_HEDGE;
+        this.credits = new AtomicLong(maxCredits);
+    }
+
+    /** Hedge after a fixed delay, at most 5% extra requests. */
+    public static HedgePolicy fixedDelay(Duration delay) {
+        return builder().delay(delay).build();
+    }
+
+    /** Hedge at the given latency percentile (e.g. 0.95), at most 5% extra requests. */
+    public static HedgePolicy atPercentile(double percentile, Duration fallbackDelay) {
+        return builder().percentile(percentile).delay(fallbackDelay).build();
+    }
+
+    public static Builder builder() { return new Builder(); }
+
+    // ---------- metrics
+
+    /** Hedge requests actually sent. */
+    public long getHedgesSent() { return hedgesSent.get(); }
+
+    /** Delay the next attempt would wait before hedging. */
+    public Duration getCurrentDelay() { return Duration.ofNanos(delayNanos()); }
+
+    // ---------- used by PerspectiveClient
+
+    long delayNanos() {
+        long p = percentileDelayNanos;
+        return (p >= 0) ? Math.max(minDelayNanos, p) : fixedDelayNanos;
+    }
+
+    /** Every primary request earns a fraction of a hedge. */
+    void onPrimary() {
+        long earn = (long) (maxHedgeRatio * CREDITS_PER_HEDGE);
+        if (earn == 0) return;
+        credits.getAndUpdate(c -> Math.min(maxCredits, c + earn));
+    }
+
+    /** Spends budget for one hedge; false if the budget is exhausted. */
+    boolean tryHedge() {
+        while (true) {
+            long c = credits.get();
+            if (c < CREDITS_PER_HEDGE) return false;
+            if (credits.compareAndSet(c, c - CREDITS_PER_HEDGE)) {
+                hedgesSent.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /** Latency of a successful attempt, feeding the percentile delay. */
+    void recordLatency(long nanos) {
+        if (Double.isNaN(percentile)) return;
+        int n = recorded.getAndIncrement();
+        latencies.set(n & (SAMPLES - 1), nanos);
+        if (n + 1 >= MIN_SAMPLES && (n + 1) % RECOMPUTE_EVERY == 0) {
+            int size = Math.min(n + 1, SAMPLES);
+            long[] copy = new long[size];
+            for (int i = 0; i < size; i++) copy[i] = latencies.get(i);
+            Arrays.sort(copy);
+            percentileDelayNanos = copy[(int) Math.min(size - 1, Math.ceil(percentile * size) - 1)];
+        }
+    }
+
+    @Override public String toString() {
+        return "HedgePolicy{delay=" + getCurrentDelay() +
+                (Double.isNaN(percentile) ? "" : ", p" + (percentile * 100)) +
+                ", maxHedgeRatio=" + maxHedgeRatio + ", hedgesSent=" + hedgesSent.get() + '}';
+    }
+
+    // ---------- Builder
+
+    public static final class Builder {
+        private Duration delay = Duration.ofMillis(500);
+        private double percentile = Double.NaN;
+        private Duration minDelay = Duration.ofMillis(10);
+        private double maxHedgeRatio = 0.05;
+        private int burst = 10;
+
+        private Builder() {}
+
+        /** Fixed hedge delay, also used until enough latencies are observed for percentile mode. */
+        public Builder delay(Duration v) { this.delay = Objects.requireNonNull(v, "delay"); return this; }
+
+        /** Hedge at this percentile (0..1) of observed latencies instead of a fixed delay. */
+        public Builder percentile(double v) { this.percentile = v; return this; }
+
+        /** Lower bound on the percentile-derived delay. */
+        public Builder minDelay(Duration v) { this.minDelay = Objects.requireNonNull(v, "minDelay"); return this; }
+
+        /** Maximum hedges per primary request over the long run, e.g. 0.05 = 5% extra requests. */
+        public Builder maxHedgeRatio(double v) { this.maxHedgeRatio = v; return this; }
+
+        /** Hedges that may be sent back-to-back when budget has accumulated. */
+        public Builder burst(int v) { this.burst = v; return this; }
+
+        public HedgePolicy build() { return new HedgePolicy(this); }
+    }
+}
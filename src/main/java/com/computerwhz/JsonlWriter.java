@@ -0,0 +1,63 @@
+package com.computerwhz;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends JSONL records to a file through a direct buffer; records from many threads are never
+ * interleaved. The channel is only written when the buffer fills, on {@link #flush()} and on close.
+ */
+final class JsonlWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    JsonlWriter(Path path, boolean append) throws IOException {
+        this.channel = append
+                ? FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)
+                : FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /** Writes one record; {@code line} must already end with '\n'. */
+    synchronized void write(byte[] line) throws IOException {
+        if (line.length > buffer.remaining()) drain();
+        if (line.length > buffer.capacity()) {
+            ByteBuffer big = ByteBuffer.wrap(line);
+            while (big.hasRemaining()) channel.write(big);
+            return;
+        }
+        buffer.put(line);
+    }
+
+    /** Hands buffered records to the OS, and to the device if {@code force}. */
+    synchronized void flush(boolean force) throws IOException {
+        drain();
+        if (force) channel.force(false);
+    }
+
+    /** Bytes written so far, including buffered ones. */
+    synchronized long length() throws IOException {
+        return channel.size() + buffer.position();
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    @Override public synchronized void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.computerwhz;
+
+import okhttp3.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Per-phase latency of every HTTP request: OkHttp's connection events (DNS, connect, TLS, server
+ * time) combined with the client's own serialize and parse timings, as one {@link CallTiming} per
+ * request plus a {@link LatencyHistogram} per {@link Phase}.
+ *
+ * Register with {@link PerspectiveClient.Builder#latencyBreakdown}; the client installs this as
+ * its OkHttp {@link EventListener.Factory} (replacing one already set on the supplied OkHttpClient).
+ * Calls made on the OkHttpClient outside PerspectiveClient are not recorded.
+ */
+public final class LatencyBreakdown implements EventListener.Factory {
+
+    public enum Phase {
+        /** Call start until a connection was ready (pool hit, or DNS + connect + TLS). */
+        CONNECTION_ACQUIRE,
+        DNS,
+        /** TCP connect including TLS. */
+        CONNECT,
+        TLS,
+        /** Serializing and writing the payload. */
+        SERIALIZE,
+        /** Request sent until response headers received. */
+        SERVER,
+        /** Reading and parsing the response body. */
+        PARSE,
+        /** Whole request, successful ones only. */
+        TOTAL
+    }
+
+    private final Map<Phase, LatencyHistogram> histograms = new EnumMap<>(Phase.class);
+    private final Consumer<CallTiming> sink;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder reusedConnections = new LongAdder();
+
+    public LatencyBreakdown() {
+        this(null);
+    }
+
+    /** @param sink receives every request's {@link CallTiming}; runs inline, keep it cheap (may be null) */
+    public LatencyBreakdown(Consumer<CallTiming> sink) {
+        for (Phase p : Phase.values()) histograms.put(p, new LatencyHistogram());
+        this.sink = sink;
+    }
+
+    public LatencyHistogram histogram(Phase phase) { return histograms.get(phase); }
+
+    public long getRequestCount() { return requests.sum(); }
+
+    public long getFailureCount() { return failures.sum(); }
+
+    public long getReusedConnectionCount() { return reusedConnections.sum(); }
+
+    /** Clears histograms and counters. */
+    public void reset() {
+        histograms.values().forEach(LatencyHistogram::reset);
+        requests.reset();
+        failures.reset();
+        reusedConnections.reset();
+    }
+
+    @Override public EventListener create(Call call) {
+        Recording r = call.request().tag(Recording.class);
+        return r != null ? r : EventListener.NONE;
+    }
+
+    /** One recorder per HTTP request; the client tags the request with it so {@link #create} finds it. */
+    Recording newRecording(PerspectiveListener downstream) {
+        return new Recording(this, downstream);
+    }
+
+    @Override public String toString() {
+        StringBuilder sb = new StringBuilder("LatencyBreakdown{requests=").append(getRequestCount())
+                .append(", failures=").append(getFailureCount())
+                .append(", reusedConnections=").append(getReusedConnectionCount());
+        for (Phase p : Phase.values()) {
+            LatencyHistogram h = histograms.get(p);
+            if (h.getCount() == 0) continue;
+            sb.append(String.format(Locale.ROOT, ", %s=[n=%d p50=%.2fms p99=%.2fms max=%.2fms]",
+                    p, h.getCount(), h.percentile(0.5) / 1e6, h.percentile(0.99) / 1e6, h.getMaxNanos() / 1e6));
+        }
+        return sb.append('}').toString();
+    }
+
+    private void record(CallTiming t) {
+        requests.increment();
+        if (!t.isSuccess()) failures.increment();
+        if (t.isConnectionReused()) reusedConnections.increment();
+        histograms.get(Phase.CONNECTION_ACQUIRE).record(t.getConnectionAcquireNanos());
+        histograms.get(Phase.DNS).record(t.getDnsNanos());
+        histograms.get(Phase.CONNECT).record(t.getConnectNanos());
+        histograms.get(Phase.TLS).record(t.getTlsNanos());
+        histograms.get(Phase.SERIALIZE).record(t.getSerializeNanos());
+        histograms.get(Phase.SERVER).record(t.getServerNanos());
+        histograms.get(Phase.PARSE).record(t.getParseNanos());
+        if (t.isSuccess()) histograms.get(Phase.TOTAL).record(t.getTotalNanos());
+        if (sink != null) sink.accept(t);
+    }
+
+    /**
+     * Collects one request's OkHttp events and client timings. OkHttp delivers a call's events
+     * sequentially, and the client's hooks run on the thread that executes the call.
+     */
+    static final class Recording extends EventListener implements PerspectiveListener {
+        private final LatencyBreakdown owner;
+        private final PerspectiveListener downstream;
+
+        private long startAt, callStartAt, dnsStartAt, connectStartAt, tlsStartAt, requestSentAt;
+        private long acquire = -1, dns = -1, connect = -1, tls = -1, serialize = -1, server = -1;
+        private boolean connected;
+        private int status;
+        private long requestBytes, responseBytes;
+        private boolean finished;
+
+        Recording(LatencyBreakdown owner, PerspectiveListener downstream) {
+            this.owner = owner;
+            this.downstream = downstream;
+        }
+
+        // ---------- OkHttp events
+
+        @Override public void callStart(Call call) { callStartAt = System.nanoTime(); }
+
+        @Override public void dnsStart(Call call, String domainName) { dnsStartAt = System.nanoTime(); }
+
+        @Override public void dnsEnd(Call call, String domainName, List<InetAddress> addresses) {
+            dns = System.nanoTime() - dnsStartAt;
+        }
+
+        @Override public void connectStart(Call call, InetSocketAddress address, Proxy proxy) {
+            connected = true;
+            connectStartAt = System.nanoTime();
+        }
+
+        @Override public void secureConnectStart(Call call) { tlsStartAt = System.nanoTime(); }
+
+        @Override public void secureConnectEnd(Call call, Handshake handshake) { tls = System.nanoTime() - tlsStartAt; }
+
+        @Override public void connectEnd(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol) {
+            connect = System.nanoTime() - connectStartAt;
+        }
+
+        @Override public void connectFailed(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol,
+                                            IOException ioe) {
+            connect = System.nanoTime() - connectStartAt;
+        }
+
+        @Override public void connectionAcquired(Call call, Connection connection) {
+            acquire = System.nanoTime() - callStartAt;
+        }
+
+        @Override public void requestHeadersEnd(Call call, Request request) { requestSentAt = System.nanoTime(); }
+
+        @Override public void requestBodyEnd(Call call, long byteCount) { requestSentAt = System.nanoTime(); }
+
+        @Override public void responseHeadersEnd(Call call, Response response) {
+            server = System.nanoTime() - requestSentAt;
+        }
+
+        // ---------- client hooks
+
+        @Override public void requestStart() {
+            startAt = System.nanoTime();
+            if (downstream != null) downstream.requestStart();
+        }
+
+        @Override public void requestSerialized(long nanos, long bytes) {
+            serialize = nanos;
+            requestBytes = bytes;
+            if (downstream != null) downstream.requestSerialized(nanos, bytes);
+        }
+
+        @Override public void responseHeaders(int statusCode, long nanos) {
+            status = statusCode;
+            if (downstream != null) downstream.responseHeaders(statusCode, nanos);
+        }
+
+        @Override public void responseParsed(long nanos, long bytes) {
+            responseBytes = bytes;
+            finish(nanos, null);
+            if (downstream != null) downstream.responseParsed(nanos, bytes);
+        }
+
+        @Override public void requestFailed(int statusCode, Throwable error, long nanos) {
+            status = statusCode;
+            finish(-1, error);
+            if (downstream != null) downstream.requestFailed(statusCode, error, nanos);
+        }
+
+        private void finish(long parse, Throwable error) {
+            if (finished) return;
+            finished = true;
+            owner.record(new CallTiming(acquire, dns, connect, tls, serialize, server, parse,
+                    System.nanoTime() - startAt, acquire >= 0 && !connected, status,
+                    requestBytes, responseBytes, error));
+        }
+    }
+}
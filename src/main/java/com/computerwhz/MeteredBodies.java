@@ -0,0 +1,71 @@
+package com.computerwhz;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okio.*;
+
+import java.io.IOException;
+
+/** Body wrappers that report sizes and timings to a {@link PerspectiveListener}; only used when one is set. */
+final class MeteredBodies {
+
+    private MeteredBodies() {}
+
+    /** Times {@code writeTo} and counts the bytes it produces. */
+    static final class Request extends RequestBody {
+        private final RequestBody delegate;
+        private final PerspectiveListener listener;
+
+        Request(RequestBody delegate, PerspectiveListener listener) {
+            this.delegate = delegate;
+            this.listener = listener;
+        }
+
+        @Override public MediaType contentType() { return delegate.contentType(); }
+
+        @Override public long contentLength() throws IOException { return delegate.contentLength(); }
+
+        @Override public boolean isOneShot() { return delegate.isOneShot(); }
+
+        @Override public void writeTo(BufferedSink sink) throws IOException {
+            long start = System.nanoTime();
+            long[] written = new long[1];
+            BufferedSink counted = Okio.buffer(new ForwardingSink(sink) {
+                @Override public void write(Buffer source, long byteCount) throws IOException {
+                    written[0] += byteCount;
+                    super.write(source, byteCount);
+                }
+            });
+            delegate.writeTo(counted);
+            counted.emit(); // hand buffered bytes to the real sink without flushing it
+            listener.requestSerialized(System.nanoTime() - start, written[0]);
+        }
+    }
+
+    /** Counts the bytes read from the body. */
+    static final class Response extends ResponseBody {
+        private final ResponseBody delegate;
+        private final BufferedSource source;
+        private long bytesRead;
+
+        Response(ResponseBody delegate) {
+            this.delegate = delegate;
+            this.source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                @Override public long read(Buffer sink, long byteCount) throws IOException {
+                    long n = super.read(sink, byteCount);
+                    if (n > 0) bytesRead += n;
+                    return n;
+                }
+            });
+        }
+
+        long bytesRead() { return bytesRead; }
+
+        @Override public MediaType contentType() { return delegate.contentType(); }
+
+        @Override public long contentLength() { return delegate.contentLength(); }
+
+        @Override public BufferedSource source() { return source; }
+    }
+}
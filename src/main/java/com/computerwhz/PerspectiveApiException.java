@@ -0,0 +1,36 @@
+package com.computerwhz;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/** Non-2xx response from the Perspective API. */
+public class PerspectiveApiException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+    private final String responseBody;
+    private final Duration retryAfter;
+
+    public PerspectiveApiException(int statusCode, String responseBody) {
+        this(statusCode, responseBody, null);
+    }
+
+    public PerspectiveApiException(int statusCode, String responseBody, Duration retryAfter) {
+        super("Perspective API error: HTTP " + statusCode + " - " + responseBody);
+        this.statusCode = statusCode;
+        this.responseBody = responseBody;
+        this.retryAfter = retryAfter;
+    }
+
+    public int getStatusCode() { return statusCode; }
+
+    /** Raw error body as returned by the API (or "HTTP &lt;code&gt;" if there was none). */
+    public String getResponseBody() { return responseBody; }
+
+    /** Delay requested by the server's Retry-After header, or null if absent/unparseable. */
+    public Duration getRetryAfter() { return retryAfter; }
+
+    /** 429 (quota) or 503 (unavailable): the server is shedding load. */
+    public boolean isOverload() { return statusCode == 429 || statusCode == 503; }
+}
@@ -4,8 +4,19 @@ import com.google.gson.*;
 import okhttp3.*;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
 import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Lightweight Java client for Google's Perspective API (single-language).
@@ -17,10 +28,29 @@ public class PerspectiveClient {
     public static final String DEFAULT_ENDPOINT =
             "https://commentanalyzer.googleapis.com/v1alpha1/comments:analyze";
 
+    private static final List<Attribute> TOXICITY_ONLY = Collections.singletonList(Attribute.TOXICITY);
+
     private final String apiKey;
     private final String endpoint;
     private final OkHttpClient http;
     private final Gson gson;
+    private final RateLimiter rateLimiter;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final RetryPolicy retryPolicy;
+    private final CircuitBreaker circuitBreaker;
+    private final HedgePolicy hedgePolicy;
+    private final ScoreCache cache;
+    private final SingleFlight<RequestKey, PerspectiveScore> singleFlight;
+    private final PerspectiveListener listener;
+    private final LatencyBreakdown latencyBreakdown;
+    private final PreFilter preFilter;
+    private final ApiKeyPool keyPool;
+    private final EndpointRouter router;
+
+    /** Payload template for the toxicity fast path; only its newRequest() is used, so it has no client. */
+    private final PreparedAnalysis toxicityTemplate;
+    /** No pipeline stage or listener configured: toxicityScore() can call OkHttp directly. */
+    private final boolean directToxicity;
 
     // ---------- ctor
 
@@ -29,15 +59,52 @@ public class PerspectiveClient {
     }
 
     public PerspectiveClient(String apiKey, String endpoint, OkHttpClient http, Gson gson) {
-        if (apiKey == null || apiKey.isEmpty()) throw new IllegalArgumentException("apiKey is required");
-        this.apiKey = apiKey;
-        this.endpoint = (endpoint == null || endpoint.isEmpty()) ? DEFAULT_ENDPOINT : endpoint;
-        this.http = (http == null) ? defaultHttp() : http;
-        this.gson = (gson == null) ? defaultGson() : gson;
+        this(builder(apiKey).endpoint(endpoint).http(http).gson(gson));
+    }
+
+    private PerspectiveClient(Builder b) {
+        if (b.apiKey == null || b.apiKey.isEmpty()) throw new IllegalArgumentException("apiKey is required");
+        this.apiKey = b.apiKey;
+        String fallback = (b.router == null) ? DEFAULT_ENDPOINT : b.router.primaryEndpoint();
+        this.endpoint = (b.endpoint == null || b.endpoint.isEmpty()) ? fallback : b.endpoint;
+        OkHttpClient http = (b.http == null) ? defaultHttp() : b.http;
+        if (b.router != null) http = http.newBuilder().addNetworkInterceptor(PerspectiveClient::markConnected).build();
+        this.http = (b.latencyBreakdown == null) ? http : http.newBuilder().eventListenerFactory(b.latencyBreakdown).build();
+        this.gson = (b.gson == null) ? defaultGson() : b.gson;
+        this.rateLimiter = b.rateLimiter;
+        this.concurrencyLimiter = b.concurrencyLimiter;
+        this.retryPolicy = b.retryPolicy;
+        this.circuitBreaker = b.circuitBreaker;
+        this.hedgePolicy = b.hedgePolicy;
+        this.cache = b.cache;
+        this.singleFlight = b.coalesceRequests ? new SingleFlight<>() : null;
+        this.listener = b.listener;
+        this.latencyBreakdown = b.latencyBreakdown;
+        this.preFilter = b.preFilter;
+        this.keyPool = b.keyPool;
+        this.router = b.router;
+        this.toxicityTemplate = new PreparedAnalysis(null, gson, resolveUrl(), TOXICITY_ONLY, new AnalyzeOptions());
+        this.directToxicity = rateLimiter == null && concurrencyLimiter == null && retryPolicy == null
+                && circuitBreaker == null && hedgePolicy == null && keyPool == null && router == null
+                && listener == null && latencyBreakdown == null;
+    }
+
+    public static Builder builder(String apiKey) { return new Builder(apiKey); }
+
+    /** Client that spreads requests over several keys, each attempt taking the least-loaded healthy one. */
+    public static Builder builder(ApiKeyPool keyPool) {
+        Builder b = new Builder(keyPool.primaryKey());
+        b.keyPool = keyPool;
+        return b;
     }
 
     private static OkHttpClient defaultHttp() {
+        // OkHttp caps async calls at 5 per host by default; analyzeAsync() is meant to keep many in flight.
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(256);
+        dispatcher.setMaxRequestsPerHost(256);
         return new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
                 .callTimeout(Duration.ofSeconds(30))
                 .connectTimeout(Duration.ofSeconds(10))
                 .readTimeout(Duration.ofSeconds(25))
@@ -56,6 +123,46 @@ public class PerspectiveClient {
         return analyze(text, Collections.singletonList(Attribute.TOXICITY), new AnalyzeOptions());
     }
 
+    /**
+     * Lean fast path: TOXICITY summary score only, language "en". The response is scanned for that
+     * one value and no PerspectiveScore is built. Skips the result cache and request coalescing.
+     * With no retry policy, breaker, limiters, hedging, key pool, router or listener configured the
+     * call is a plain OkHttp execute on the caller's thread (no futures, no boxing); otherwise it
+     * goes through the same pipeline as {@link #analyze}.
+     *
+     * @return score in 0..1, or NaN if the API returned none
+     */
+    public double toxicityScore(String text) throws IOException {
+        validate(text, TOXICITY_ONLY);
+        if (preFilter != null) {
+            PerspectiveScore local = preFilter.apply(text, TOXICITY_ONLY, "en");
+            if (local != null) return local.score(Attribute.TOXICITY);
+        }
+        PerspectiveEvents.Analyze event = PerspectiveEvents.analyze(text, 1);
+        Request req = toxicityTemplate.newRequest(text);
+        if (directToxicity) return toxicityDirect(req, event);
+        return await(observed(run(req, PerspectiveClient::readToxicity, true), event, false));
+    }
+
+    private double toxicityDirect(Request req, PerspectiveEvents.Analyze event) throws IOException {
+        double score;
+        try (Response res = http.newCall(req).execute()) {
+            checkSuccess(res);
+            ResponseBody body = res.body();
+            score = (body == null) ? Double.NaN : ResponseParser.summaryScore(body.charStream(), Attribute.TOXICITY);
+        } catch (IOException | RuntimeException e) {
+            if (event != null) event.complete(null, e);
+            throw e;
+        }
+        if (event != null) event.complete(null, null);
+        return score;
+    }
+
+    /** {@code toxicityScore(text) >= threshold}, without building a PerspectiveScore. */
+    public boolean isToxic(String text, double threshold) throws IOException {
+        return toxicityScore(text) >= threshold;
+    }
+
     /** Analyze with common attributes; language defaults to "en". */
     public PerspectiveScore analyze(String text, List<Attribute> attributes) throws IOException {
         return analyze(text, attributes, new AnalyzeOptions());
@@ -70,120 +177,712 @@ public class PerspectiveClient {
      * @return PerspectiveScore (immutable)
      */
     public PerspectiveScore analyze(String text, List<Attribute> attributes, AnalyzeOptions options) throws IOException {
-        if (text == null || text.isEmpty()) throw new IllegalArgumentException("text is required");
+        return await(submit(text, attributes, options, null, true));
+    }
+
+    /**
+     * Precompiles the payload and URL for a fixed attribute list and options, so repeated calls
+     * only serialize the comment text. Later changes to {@code options} do not affect the result.
+     */
+    public PreparedAnalysis prepare(List<Attribute> attributes, AnalyzeOptions options) {
+        return new PreparedAnalysis(this, gson, resolveUrl(), attributes, options);
+    }
+
+    /** Calls that were answered by sharing an identical in-flight request (0 unless coalescing is on). */
+    public long getCoalescedRequestCount() {
+        return singleFlight == null ? 0L : singleFlight.getCoalescedCount();
+    }
+
+    /** Async variant of {@link #toxicity(String)}. */
+    public CompletableFuture<PerspectiveScore> toxicityAsync(String text) {
+        return analyzeAsync(text, Collections.singletonList(Attribute.TOXICITY), new AnalyzeOptions());
+    }
+
+    /**
+     * Non-blocking variant of {@link #analyze(String, List, AnalyzeOptions)} built on OkHttp's
+     * {@code Call.enqueue}; no thread is held while the request is in flight.
+     * Cancelling the returned future cancels the underlying HTTP call.
+     *
+     * @throws IllegalArgumentException if text or attributes are missing (thrown eagerly, not via the future)
+     */
+    public CompletableFuture<PerspectiveScore> analyzeAsync(String text, List<Attribute> attributes, AnalyzeOptions options) {
+        return submit(text, attributes, options, null, false);
+    }
+
+    /** Blocking variant of {@link #analyzeChunkedAsync}. */
+    public PerspectiveScore analyzeChunked(String text, List<Attribute> attributes, AnalyzeOptions options,
+                                           ChunkOptions chunking) throws IOException {
+        return await(analyzeChunkedAsync(text, attributes, options, chunking));
+    }
+
+    /**
+     * Analyzes text of any length: splits it on sentence/whitespace boundaries into chunks of at most
+     * {@code chunking.maxChunkBytes}, scores the chunks in parallel and merges them into one score
+     * whose spans are offsets into {@code text}. Text that fits in one chunk is sent as is.
+     * The call fails (and cancels the remaining chunks) as soon as any chunk fails.
+     */
+    public CompletableFuture<PerspectiveScore> analyzeChunkedAsync(String text, List<Attribute> attributes,
+                                                                   AnalyzeOptions options, ChunkOptions chunking) {
+        validate(text, attributes);
+        AnalyzeOptions opts = (options == null) ? new AnalyzeOptions() : options;
+        ChunkOptions c = (chunking == null) ? new ChunkOptions() : chunking;
+        if (c.maxChunkBytes < 4) throw new IllegalArgumentException("maxChunkBytes must be >= 4");
+
+        List<int[]> ranges = new ArrayList<>();
+        for (int[] r : TextChunker.split(text, c.maxChunkBytes)) {
+            if (!text.substring(r[0], r[1]).isBlank()) ranges.add(r);
+        }
+        if (ranges.isEmpty()) return submit(text, attributes, opts, null, false);
+        if (ranges.size() == 1 && ranges.get(0)[0] == 0 && ranges.get(0)[1] == text.length()) {
+            return submit(text, attributes, opts, null, false);
+        }
+        // from here on a single non-blank chunk is sent alone and merged like any other
+
+        List<CompletableFuture<PerspectiveScore>> parts = new ArrayList<>(ranges.size());
+        CompletableFuture<PerspectiveScore> result = new CompletableFuture<>();
+        for (int[] r : ranges) {
+            CompletableFuture<PerspectiveScore> part = submit(text.substring(r[0], r[1]), attributes, opts, null, false);
+            part.whenComplete((score, err) -> {
+                if (err != null) result.completeExceptionally(unwrap(err));
+            });
+            parts.add(part);
+        }
+        result.whenComplete((score, err) -> {
+            if (err != null) parts.forEach(p -> p.cancel(true));
+        });
+        CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0])).thenRun(() -> {
+            List<PerspectiveScore> scores = new ArrayList<>(parts.size());
+            for (CompletableFuture<PerspectiveScore> p : parts) scores.add(p.join());
+            result.complete(TextChunker.merge(text, ranges, scores, c.aggregation));
+        });
+        return result;
+    }
+
+    /**
+     * Bulk scoring with bounded concurrency. Input is read lazily: at most {@code bulk.maxInFlight}
+     * requests are outstanding, and more are issued only as results are consumed from the stream.
+     * Per-item failures are reported as {@link BulkResult}s rather than aborting the run.
+     * Closing the stream cancels in-flight requests.
+     *
+     * @param texts      comments to score (null/empty entries yield failed results)
+     * @param attributes attributes requested for every text
+     * @param options    analysis options shared by every text
+     * @param bulk       concurrency and ordering (default: 64 in flight, input order)
+     */
+    public Stream<BulkResult> analyzeAll(Iterable<String> texts, List<Attribute> attributes,
+                                        AnalyzeOptions options, BulkOptions bulk) {
+        Objects.requireNonNull(texts, "texts");
         if (attributes == null || attributes.isEmpty()) {
             throw new IllegalArgumentException("at least one attribute is required");
         }
-        if (options == null) options = new AnalyzeOptions();
-
-        // Build payload
-        JsonObject payload = new JsonObject();
-
-        JsonObject comment = new JsonObject();
-        comment.addProperty("text", text);
-        payload.add("comment", comment);
-
-        JsonArray langs = new JsonArray();
-        langs.add(options.language == null || options.language.isEmpty() ? "en" : options.language);
-        payload.add("languages", langs);
-
-        JsonObject reqAttrs = new JsonObject();
-        for (Attribute attr : attributes) {
-            reqAttrs.add(attr.name(), new JsonObject());
-        }
-        payload.add("requestedAttributes", reqAttrs);
-
-        if (options.doNotStore != null) payload.addProperty("doNotStore", options.doNotStore);
-        if (options.clientToken != null) payload.addProperty("clientToken", options.clientToken);
-        if (options.communityId != null) payload.addProperty("communityId", options.communityId);
-        if (options.spanAnnotations != null) payload.addProperty("spanAnnotations", options.spanAnnotations);
-        if (options.sessionId != null) payload.addProperty("sessionId", options.sessionId);
-        if (options.context != null && !options.context.isEmpty()) {
-            JsonObject ctx = new JsonObject();
-            JsonArray ctxEntries = new JsonArray();
-            for (String c : options.context) {
-                JsonObject entry = new JsonObject();
-                entry.addProperty("text", c);
-                ctxEntries.add(entry);
+        AnalyzeOptions opts = (options == null) ? new AnalyzeOptions() : options;
+        BulkOptions b = (bulk == null) ? new BulkOptions() : bulk;
+
+        BulkIterator it = new BulkIterator(texts.iterator(),
+                text -> analyzeAsync(text, attributes, opts), b.maxInFlight, b.ordered);
+        int characteristics = Spliterator.NONNULL | (b.ordered ? Spliterator.ORDERED : 0);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, characteristics), false)
+                .onClose(it::close);
+    }
+
+    // ---------- pipeline
+
+    /**
+     * Shared path for blocking and async calls. In blocking mode every stage (permit wait, HTTP call)
+     * runs inline on the caller's thread, so the returned future is already complete. Hedging needs
+     * two calls racing, so with a hedge policy blocking callers run async and wait for the result.
+     */
+    CompletableFuture<PerspectiveScore> submit(String text, List<Attribute> attributes, AnalyzeOptions options,
+                                               PreparedAnalysis prepared, boolean blocking) {
+        validate(text, attributes);
+        AnalyzeOptions opts = (options == null) ? new AnalyzeOptions() : options;
+        if (preFilter != null) {
+            PerspectiveScore local = preFilter.apply(text, attributes, opts.language);
+            if (local != null) return CompletableFuture.completedFuture(local);
+        }
+        PerspectiveEvents.Analyze event = PerspectiveEvents.analyze(text, attributes.size());
+
+        RequestKey cacheKey = (cache == null) ? null : RequestKey.forScore(text, attributes, opts);
+        if (cacheKey != null) {
+            PerspectiveEvents.CacheLookup lookup = PerspectiveEvents.cacheLookup(text, attributes.size());
+            PerspectiveScore cached = cache.get(cacheKey);
+            if (lookup != null) {
+                lookup.hit = (cached != null);
+                lookup.commit();
             }
-            ctx.add("entries", ctxEntries);
-            payload.add("context", ctx);
+            if (cached != null) return observed(CompletableFuture.completedFuture(cached), event, true);
         }
 
-        // HTTP request
-        HttpUrl url = Objects.requireNonNull(HttpUrl.parse(endpoint))
-                .newBuilder()
-                .addQueryParameter("key", apiKey)
-                .build();
+        CompletableFuture<PerspectiveScore> result = (singleFlight == null)
+                ? execute(text, attributes, opts, prepared, cacheKey, blocking)
+                : singleFlight.join(RequestKey.exact(text, attributes, opts),
+                        () -> execute(text, attributes, opts, prepared, cacheKey, blocking));
+        return observed(result, event, false);
+    }
 
-        RequestBody body = RequestBody.create(
-                gson.toJson(payload),
-                MediaType.parse("application/json; charset=utf-8")
-        );
+    /** Commits the JFR event (if recording) when the call completes; returns {@code result} itself. */
+    private static <T> CompletableFuture<T> observed(CompletableFuture<T> result, PerspectiveEvents.Analyze event,
+                                                     boolean cached) {
+        if (event != null) {
+            event.cached = cached;
+            result.whenComplete(event::complete);
+        }
+        return result;
+    }
 
-        Request req = new Request.Builder().url(url).post(body).build();
+    /** Runs the request through retries, hedging, breaker and limiters; fills the cache on success. */
+    private CompletableFuture<PerspectiveScore> execute(String text, List<Attribute> attributes, AnalyzeOptions opts,
+                                                        PreparedAnalysis prepared, RequestKey cacheKey,
+                                                        boolean blocking) {
+        Request req = (prepared != null) ? prepared.newRequest(text) : buildRequest(text, attributes, opts);
+        CompletableFuture<PerspectiveScore> result = run(req, res -> readScore(res, text, attributes, opts), blocking);
+        if (cacheKey != null) result.thenAccept(score -> cache.put(cacheKey, score));
+        return result;
+    }
 
-        try (Response res = http.newCall(req).execute()) {
-            if (!res.isSuccessful()) {
-                String err = (res.body() != null) ? res.body().string() : ("HTTP " + res.code());
-                throw new IOException("Perspective API error: HTTP " + res.code() + " - " + err);
+    /**
+     * Runs one request through retries, hedging, breaker and limiters, handing the response to
+     * {@code reader}. Cancelling the returned future cancels every HTTP call it started.
+     */
+    private <T> CompletableFuture<T> run(Request req, ResponseReader<T> reader, boolean blocking) {
+        Exchange<T> ex = new Exchange<>(req, reader, blocking && hedgePolicy == null);
+        withRetries(ex, 1, System.nanoTime(), 0L).whenComplete((value, err) -> {
+            if (err == null) ex.result.complete(value);
+            else ex.result.completeExceptionally(err);
+        });
+        return ex.result;
+    }
+
+    /** Runs attempts until one succeeds or the retry policy gives up. */
+    private <T> CompletableFuture<T> withRetries(Exchange<T> ex, int attemptNo, long startNanos,
+                                                            long prevDelayNanos) {
+        RetryPolicy policy = retryPolicy;
+        if (policy == null) return hedged(ex);
+
+        return hedged(ex).handle((score, err) -> {
+            if (err == null) return CompletableFuture.completedFuture(score);
+            long delay = ex.result.isDone() ? -1L
+                    : policy.nextDelayNanos(attemptNo, prevDelayNanos, err, System.nanoTime() - startNanos);
+            if (delay < 0) return CompletableFuture.<T>failedFuture(unwrap(err));
+            PerspectiveEvents.retry(attemptNo, delay, err);
+            return delay(delay, ex.blocking)
+                    .thenCompose(v -> withRetries(ex, attemptNo + 1, startNanos, delay));
+        }).thenCompose(Function.identity());
+    }
+
+    /**
+     * One attempt; with a hedge policy a second leg is started if the first is still running after
+     * the hedge delay. The first success wins and the other leg is cancelled.
+     */
+    private <T> CompletableFuture<T> hedged(Exchange<T> ex) {
+        HedgePolicy policy = hedgePolicy;
+        if (policy == null) return attempt(ex, ex.newLeg());
+
+        policy.onPrimary();
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        List<Leg> legs = new CopyOnWriteArrayList<>();
+        launchLeg(ex, policy, winner, outstanding, legs);
+
+        CompletableFuture.delayedExecutor(policy.delayNanos(), TimeUnit.NANOSECONDS).execute(() -> {
+            if (winner.isDone() || !policy.tryHedge()) return;
+            outstanding.incrementAndGet();
+            launchLeg(ex, policy, winner, outstanding, legs);
+        });
+        return winner;
+    }
+
+    private <T> void launchLeg(Exchange<T> ex, HedgePolicy policy, CompletableFuture<T> winner,
+                           AtomicInteger outstanding, List<Leg> legs) {
+        Leg leg = ex.newLeg();
+        legs.add(leg);
+        if (winner.isDone()) leg.cancel();
+        long start = System.nanoTime();
+        attempt(ex, leg).whenComplete((score, err) -> {
+            if (err == null) {
+                policy.recordLatency(System.nanoTime() - start);
+                if (winner.complete(score)) {
+                    for (Leg other : legs) if (other != leg) other.cancel();
+                }
+            } else if (outstanding.decrementAndGet() == 0) {
+                winner.completeExceptionally(err); // every leg failed: report the last failure
             }
-            String json = res.body() != null ? res.body().string() : "{}";
-            return parseToScore(text, options.language, json, attributes);
+        });
+    }
+
+    /**
+     * One trip to the API: pass the circuit breaker, wait for a concurrency slot,
+     * then a rate-limit permit, then send. The breaker is told how long the HTTP exchange took,
+     * not the time spent queued behind the limiters.
+     */
+    private <T> CompletableFuture<T> attempt(Exchange<T> ex, Leg leg) {
+        CircuitBreaker breaker = circuitBreaker;
+        if (breaker == null) return limited(ex, leg);
+
+        long permit;
+        try {
+            permit = breaker.acquirePermission();
+        } catch (CircuitOpenException e) {
+            return CompletableFuture.failedFuture(e);
         }
+        return limited(ex, leg).whenComplete((score, err) -> {
+            long took = leg.sinceSentNanos();
+            if (err == null) breaker.onSuccess(permit, took);
+            else if (isUpstreamFailure(err)) breaker.onFailure(permit, took);
+            else breaker.onIgnored(permit);
+        });
     }
 
-    // ---------- parsing
+    private <T> CompletableFuture<T> limited(Exchange<T> ex, Leg leg) {
+        AdaptiveConcurrencyLimiter limiter = concurrencyLimiter;
+        if (limiter == null) return paced(ex, leg);
+
+        CompletableFuture<Void> slot = limiter.acquire();
+        if (ex.blocking && !slot.isDone()) {
+            try {
+                slot.get();
+            } catch (InterruptedException e) {
+                if (!slot.cancel(false)) limiter.release();
+                Thread.currentThread().interrupt();
+                return CompletableFuture.failedFuture(new InterruptedIOException("interrupted while waiting for a slot"));
+            } catch (ExecutionException ignored) {
+                // not completed exceptionally by the limiter
+            }
+        }
+        return slot.thenCompose(v -> paced(ex, leg).whenComplete((score, err) -> {
+            long rtt = leg.sinceSentNanos(); // pacing waits are self-imposed, not congestion
+            if (err == null) limiter.release(rtt, false);
+            else if (isOverload(err)) limiter.release(rtt, true);
+            else limiter.release();
+        }));
+    }
 
-    private PerspectiveScore parseToScore(String text, String languageOrNull, String json,
-                                          List<Attribute> requestedAttrs) {
-        JsonObject root = gson.fromJson(json, JsonObject.class);
-        JsonObject attrScores = root.has("attributeScores") && root.get("attributeScores").isJsonObject()
-                ? root.getAsJsonObject("attributeScores") : new JsonObject();
+    private <T> CompletableFuture<T> paced(Exchange<T> ex, Leg leg) {
+        long waitNanos;
+        if (rateLimiter == null) {
+            waitNanos = 0L;
+        } else {
+            try {
+                waitNanos = rateLimiter.acquireOrReject();
+            } catch (RateLimitExceededException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        ApiKeyPool.Lease lease = null;
+        if (keyPool != null) {
+            try {
+                lease = keyPool.acquire();
+            } catch (RateLimitExceededException e) {
+                if (rateLimiter != null) rateLimiter.refund(); // nothing is sent: don't throttle later calls for it
+                return CompletableFuture.failedFuture(e);
+            }
+            waitNanos = Math.max(waitNanos, lease.waitNanos);
+        }
+        String apiKey = (lease == null) ? null : lease.apiKey();
+
+        CompletableFuture<T> sent;
+        if (waitNanos <= 0) {
+            sent = routed(ex, leg, apiKey, null, 0);
+        } else {
+            PerspectiveEvents.RateLimitWait wait = PerspectiveEvents.rateLimitWait(waitNanos);
+            CompletableFuture<Void> waited = delay(waitNanos, ex.blocking);
+            if (wait != null) waited.whenComplete((v, err) -> wait.commit());
+            sent = waited.thenCompose(v -> routed(ex, leg, apiKey, null, 0));
+        }
+        if (lease != null) {
+            ApiKeyPool.Lease held = lease;
+            sent.whenComplete((v, err) -> held.release(err));
+        }
+        return sent;
+    }
 
-        Map<String, Double> scores = new LinkedHashMap<>();
-        List<PerspectiveScore.SpanAnnotation> spans = new ArrayList<>();
+    /**
+     * Sends to the endpoint the router picks (if there is a router), failing over to another
+     * endpoint when the connection cannot be established.
+     */
+    private <T> CompletableFuture<T> routed(Exchange<T> ex, Leg leg, String apiKey,
+                                            EndpointRouter.Endpoint failed, int failovers) {
+        EndpointRouter r = router;
+        if (r == null) return send(ex, leg, apiKey, null);
+
+        EndpointRouter.Endpoint target = r.pick(failed);
+        long start = System.nanoTime();
+        return send(ex, leg, apiKey, target).handle((value, err) -> {
+            boolean connected = leg.connected;
+            r.complete(target, System.nanoTime() - start, err, connected);
+            if (err == null) return CompletableFuture.completedFuture(value);
+            if (failovers + 1 < r.size() && !leg.isCancelled() && r.failover(err, connected)) {
+                return routed(ex, leg, apiKey, target, failovers + 1);
+            }
+            return CompletableFuture.<T>failedFuture(unwrap(err));
+        }).thenCompose(Function.identity());
+    }
 
-        for (Attribute attr : requestedAttrs) {
-            String key = attr.name();
-            Double val = Double.NaN;
+    /**
+     * @param apiKey   key chosen from the pool for this attempt, or null to use the request's own
+     * @param endpoint endpoint chosen by the router, or null to use the request's URL
+     */
+    private <T> CompletableFuture<T> send(Exchange<T> ex, Leg leg, String apiKey, EndpointRouter.Endpoint endpoint) {
+        if (leg.isCancelled()) return CompletableFuture.failedFuture(new CancellationException("attempt cancelled"));
+        LatencyBreakdown.Recording recording = (latencyBreakdown == null) ? null : latencyBreakdown.newRecording(listener);
+        PerspectiveListener l = (recording != null) ? recording : listener;
+        Request req = ex.request;
+        HttpUrl url = null;
+        if (endpoint != null) url = endpoint.url(apiKey != null ? apiKey : this.apiKey);
+        else if (apiKey != null) url = req.url().newBuilder().setQueryParameter("key", apiKey).build();
+        if (url != null) {
+            Request.Builder rb = req.newBuilder().url(url);
+            if (endpoint != null) {
+                leg.connected = false;
+                rb.tag(Leg.class, leg);
+            }
+            req = rb.build();
+        }
+        long start = 0L;
+        if (l != null) {
+            start = System.nanoTime();
+            l.requestStart();
+            Request.Builder rb = req.newBuilder().post(new MeteredBodies.Request(req.body(), l));
+            if (recording != null) rb.tag(LatencyBreakdown.Recording.class, recording);
+            req = rb.build();
+        }
+        Call call = http.newCall(req);
+        leg.bind(call);
+        leg.markSent();
+
+        if (ex.blocking) {
+            Response res;
+            try {
+                res = call.execute();
+            } catch (IOException | RuntimeException e) {
+                return CompletableFuture.failedFuture(transportFailure(call, e, l, start));
+            }
+            try (res) {
+                return CompletableFuture.completedFuture(receive(ex, res, l, start));
+            } catch (IOException | RuntimeException e) {
+                return CompletableFuture.failedFuture(call.isCanceled() ? cancelled(e) : e);
+            }
+        }
 
-            if (attrScores.has(key)) {
-                JsonObject a = attrScores.getAsJsonObject(key);
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long sent = start;
+        call.enqueue(new Callback() {
+            @Override public void onFailure(Call c, IOException e) {
+                future.completeExceptionally(transportFailure(c, e, l, sent));
+            }
 
-                // summaryScore
-                if (a.has("summaryScore")) {
-                    JsonObject s = a.getAsJsonObject("summaryScore");
-                    if (s.has("value")) {
-                        try { val = s.get("value").getAsDouble(); } catch (Exception ignored) {}
-                    }
+            @Override public void onResponse(Call c, Response res) {
+                try (res) {
+                    future.complete(receive(ex, res, l, sent));
+                } catch (Throwable t) {
+                    future.completeExceptionally(c.isCanceled() ? cancelled(t) : t);
                 }
+            }
+        });
+        return future;
+    }
 
-                // spanScores (if requested)
-                if (a.has("spanScores") && a.get("spanScores").isJsonArray()) {
-                    for (JsonElement e : a.getAsJsonArray("spanScores")) {
-                        if (!e.isJsonObject()) continue;
-                        JsonObject ss = e.getAsJsonObject();
-                        Integer begin = ss.has("begin") ? ss.get("begin").getAsInt() : null;
-                        Integer end   = ss.has("end")   ? ss.get("end").getAsInt()   : null;
-                        Double sval   = (ss.has("score") && ss.get("score").isJsonObject())
-                                ? ss.getAsJsonObject("score").get("value").getAsDouble() : null;
-                        if (begin != null && end != null && sval != null) {
-                            spans.add(new PerspectiveScore.SpanAnnotation(begin, end, key, sval));
-                        }
-                    }
-                }
+    /** Hands the response to the exchange's reader, reporting headers/parse/failure to the listener if set. */
+    private static <T> T receive(Exchange<T> ex, Response res, PerspectiveListener l, long start) throws IOException {
+        if (l == null) return ex.reader.read(res);
+
+        long headers = System.nanoTime();
+        l.responseHeaders(res.code(), headers - start);
+        ResponseBody body = res.body();
+        MeteredBodies.Response metered = (body == null) ? null : new MeteredBodies.Response(body);
+        try {
+            T value = ex.reader.read(metered == null ? res : res.newBuilder().body(metered).build());
+            l.responseParsed(System.nanoTime() - headers, metered == null ? 0L : metered.bytesRead());
+            return value;
+        } catch (IOException | RuntimeException e) {
+            l.requestFailed(res.code(), e, System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    /** No response: connection error, timeout or cancellation. */
+    private static Throwable transportFailure(Call call, Throwable e, PerspectiveListener l, long start) {
+        Throwable err = call.isCanceled() ? cancelled(e) : e;
+        if (l != null) l.requestFailed(0, err, System.nanoTime() - start);
+        return err;
+    }
+
+    /** A cancelled call is not an upstream failure: keep it out of retry, breaker and limiter decisions. */
+    private static CancellationException cancelled(Throwable cause) {
+        CancellationException ce = new CancellationException("call cancelled");
+        ce.initCause(cause);
+        return ce;
+    }
+
+    /** Sleeps inline when blocking, otherwise completes the returned future after the delay. */
+    private static CompletableFuture<Void> delay(long nanos, boolean blocking) {
+        if (blocking) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(nanos);
+                return CompletableFuture.completedFuture(null);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return CompletableFuture.failedFuture(new InterruptedIOException("interrupted while waiting"));
             }
-            scores.put(key, val);
         }
+        CompletableFuture<Void> f = new CompletableFuture<>();
+        CompletableFuture.delayedExecutor(nanos, TimeUnit.NANOSECONDS).execute(() -> f.complete(null));
+        return f;
+    }
+
+    /** Server shedding load (429/503) or not answering in time. */
+    private static boolean isOverload(Throwable t) {
+        t = unwrap(t);
+        if (t instanceof PerspectiveApiException) return ((PerspectiveApiException) t).isOverload();
+        // OkHttp reports callTimeout as InterruptedIOException("timeout")
+        return t instanceof SocketTimeoutException
+                || (t instanceof InterruptedIOException && "timeout".equals(t.getMessage()));
+    }
+
+    /** 5xx, timeout or connection failure; 4xx and client-side rejections say nothing about upstream health. */
+    private static boolean isUpstreamFailure(Throwable t) {
+        t = unwrap(t);
+        if (t instanceof PerspectiveApiException) return ((PerspectiveApiException) t).getStatusCode() >= 500;
+        if (t instanceof RateLimitExceededException || t instanceof CircuitOpenException) return false;
+        if (t instanceof InterruptedIOException) return "timeout".equals(t.getMessage());
+        return t instanceof IOException;
+    }
+
+    /** Strips the wrappers CompletableFuture puts around failures. */
+    static Throwable unwrap(Throwable t) {
+        while ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null) {
+            t = t.getCause();
+        }
+        return t;
+    }
+
+    static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for Perspective API");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Network interceptors only run once a connection is up, so a routed leg still unflagged when
+     * its call fails never got past connecting (DNS, connect, TLS).
+     */
+    private static Response markConnected(Interceptor.Chain chain) throws IOException {
+        Leg leg = chain.request().tag(Leg.class);
+        if (leg != null) leg.connected = true;
+        return chain.proceed(chain.request());
+    }
+
+    /** Turns a response (any status) into the call's result; runs on the thread that received it. */
+    @FunctionalInterface
+    private interface ResponseReader<T> {
+        T read(Response res) throws IOException;
+    }
+
+    /** State of one logical call across the pipeline stages. */
+    private static final class Exchange<T> {
+        final Request request;
+        final ResponseReader<T> reader;
+        final boolean blocking;
+
+        /** Future handed to the caller; cancelling it cancels every active HTTP call. */
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        private final Queue<Leg> legs = new ConcurrentLinkedQueue<>();
+
+        Exchange(Request request, ResponseReader<T> reader, boolean blocking) {
+            this.request = request;
+            this.reader = reader;
+            this.blocking = blocking;
+            result.whenComplete((score, err) -> {
+                if (result.isCancelled()) legs.forEach(Leg::cancel);
+            });
+        }
+
+        Leg newLeg() {
+            Leg leg = new Leg(this);
+            legs.add(leg);
+            return leg;
+        }
+    }
+
+    /** One HTTP request of an exchange (a retry or a hedge is a new leg); cancellable on its own. */
+    private static final class Leg {
+        private final Exchange<?> exchange;
+        private volatile Call call;
+        private volatile boolean cancelled;
+        private volatile long sentAtNanos;
+        private volatile boolean sent;
+        /** Routed legs: a connection was established for the current send. */
+        volatile boolean connected;
+
+        Leg(Exchange<?> exchange) { this.exchange = exchange; }
+
+        boolean isCancelled() { return cancelled || exchange.result.isCancelled(); }
+
+        /** Called as each HTTP request goes out; a failover resend keeps the first send time. */
+        void markSent() {
+            if (sent) return;
+            sentAtNanos = System.nanoTime();
+            sent = true;
+        }
+
+        /** Time since the first HTTP request of this leg went out, or 0 if none did. */
+        long sinceSentNanos() {
+            return sent ? System.nanoTime() - sentAtNanos : 0L;
+        }
+
+        void bind(Call c) {
+            call = c;
+            if (isCancelled()) c.cancel();
+        }
+
+        void cancel() {
+            cancelled = true;
+            Call c = call;
+            if (c != null) c.cancel();
+        }
+    }
+
+    // ---------- request / response
+
+    private static void validate(String text, List<Attribute> attributes) {
+        if (text == null || text.isEmpty()) throw new IllegalArgumentException("text is required");
+        if (attributes == null || attributes.isEmpty()) {
+            throw new IllegalArgumentException("at least one attribute is required");
+        }
+    }
+
+    private Request buildRequest(String text, List<Attribute> attributes, AnalyzeOptions options) {
+        RequestBody body = new AnalyzeRequestBody(gson, text, attributes, options);
+        return new Request.Builder().url(resolveUrl()).post(body).build();
+    }
 
-        return PerspectiveScore.builder(text)
-                .languages(Collections.singletonList(languageOrNull == null || languageOrNull.isEmpty() ? "en" : languageOrNull))
-                .putAllScores(scores)
-                .addAllSpans(spans)
+    private HttpUrl resolveUrl() {
+        return Objects.requireNonNull(HttpUrl.parse(endpoint))
+                .newBuilder()
+                .addQueryParameter("key", apiKey)
                 .build();
     }
 
+    private PerspectiveScore readScore(Response res, String text, List<Attribute> attributes,
+                                       AnalyzeOptions options) throws IOException {
+        checkSuccess(res);
+        ResponseBody body = res.body();
+        return ResponseParser.parse(text, options.language, body == null ? null : body.charStream(), attributes);
+    }
+
+    private static Double readToxicity(Response res) throws IOException {
+        checkSuccess(res);
+        ResponseBody body = res.body();
+        return body == null ? Double.NaN : ResponseParser.summaryScore(body.charStream(), Attribute.TOXICITY);
+    }
+
+    private static void checkSuccess(Response res) throws IOException {
+        if (!res.isSuccessful()) {
+            String err = (res.body() != null) ? res.body().string() : ("HTTP " + res.code());
+            throw new PerspectiveApiException(res.code(), err, parseRetryAfter(res.header("Retry-After")));
+        }
+    }
+
+    /** Retry-After is either delta-seconds or an HTTP-date. */
+    static Duration parseRetryAfter(String value) {
+        if (value == null || value.isBlank()) return null;
+        String v = value.trim();
+        try {
+            return Duration.ofSeconds(Math.max(0L, Long.parseLong(v)));
+        } catch (NumberFormatException ignored) {
+            // fall through to HTTP-date
+        }
+        try {
+            Instant at = ZonedDateTime.parse(v, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            Duration d = Duration.between(Instant.now(), at);
+            return d.isNegative() ? Duration.ZERO : d;
+        } catch (DateTimeParseException ignored) {
+            return null;
+        }
+    }
+
+    // ---------- builder
+
+    public static final class Builder {
+        private final String apiKey;
+        private String endpoint;
+        private OkHttpClient http;
+        private Gson gson;
+        private RateLimiter rateLimiter;
+        private AdaptiveConcurrencyLimiter concurrencyLimiter;
+        private RetryPolicy retryPolicy;
+        private CircuitBreaker circuitBreaker;
+        private HedgePolicy hedgePolicy;
+        private ScoreCache cache;
+        private boolean coalesceRequests;
+        private PerspectiveListener listener;
+        private LatencyBreakdown latencyBreakdown;
+        private PreFilter preFilter;
+        private ApiKeyPool keyPool;
+        private EndpointRouter router;
+
+        private Builder(String apiKey) { this.apiKey = apiKey; }
+
+        /** API endpoint (default {@link #DEFAULT_ENDPOINT}). */
+        public Builder endpoint(String v) { this.endpoint = v; return this; }
+
+        /** HTTP client to use (default: 30s call timeout, 256 concurrent requests per host). */
+        public Builder http(OkHttpClient v) { this.http = v; return this; }
+
+        public Builder gson(Gson v) { this.gson = v; return this; }
+
+        /** Client-side QPS limit applied to every HTTP request (default: none). */
+        public Builder rateLimiter(RateLimiter v) { this.rateLimiter = v; return this; }
+
+        /** Adaptive cap on in-flight HTTP requests (default: none). */
+        public Builder concurrencyLimiter(AdaptiveConcurrencyLimiter v) { this.concurrencyLimiter = v; return this; }
+
+        /** Retry transient failures, e.g. {@link RetryPolicy#defaults()} (default: no retries). */
+        public Builder retryPolicy(RetryPolicy v) { this.retryPolicy = v; return this; }
+
+        /** Fail fast while the endpoint is unhealthy, e.g. {@link CircuitBreaker#defaults()} (default: none). */
+        public Builder circuitBreaker(CircuitBreaker v) { this.circuitBreaker = v; return this; }
+
+        /** Send a backup request when an attempt is slow, e.g. {@link HedgePolicy#atPercentile} (default: off). */
+        public Builder hedgePolicy(HedgePolicy v) { this.hedgePolicy = v; return this; }
+
+        /** Serve repeated texts from memory without a network call (default: no cache). */
+        public Builder cache(ScoreCache v) { this.cache = v; return this; }
+
+        /**
+         * Share one HTTP call between concurrent identical requests (same text, attributes and options).
+         * Each caller still gets its own future; cancelling it does not affect the others (default: off).
+         */
+        public Builder coalesceRequests(boolean v) { this.coalesceRequests = v; return this; }
+
+        /** Timings, sizes and status codes of every HTTP request (default: none). */
+        public Builder listener(PerspectiveListener v) { this.listener = v; return this; }
+
+        /**
+         * Per-phase timings (DNS, connect, TLS, server, serialize, parse) of every HTTP request.
+         * Installed as the OkHttpClient's event listener factory (default: none).
+         */
+        public Builder latencyBreakdown(LatencyBreakdown v) { this.latencyBreakdown = v; return this; }
+
+        /** Answer obviously clean or lexicon-toxic texts locally, before cache and API (default: none). */
+        public Builder preFilter(PreFilter v) { this.preFilter = v; return this; }
+
+        /** Spread attempts over several endpoints with latency-aware selection and failover (default: {@link #endpoint} only). */
+        public Builder router(EndpointRouter v) { this.router = v; return this; }
+
+        public PerspectiveClient build() { return new PerspectiveClient(this); }
+    }
+
     // ---------- options
 
     public static class AnalyzeOptions {
@@ -206,5 +905,53 @@ public class PerspectiveClient {
         public AnalyzeOptions spanAnnotations(boolean v) { this.spanAnnotations = v; return this; }
         public AnalyzeOptions sessionId(String v) { this.sessionId = v; return this; }
         public AnalyzeOptions context(List<String> v) { this.context = v; return this; }
+
+        AnalyzeOptions copy() {
+            AnalyzeOptions c = new AnalyzeOptions();
+            c.language = language;
+            c.doNotStore = doNotStore;
+            c.clientToken = clientToken;
+            c.communityId = communityId;
+            c.spanAnnotations = spanAnnotations;
+            c.sessionId = sessionId;
+            c.context = (context == null) ? null : new ArrayList<>(context);
+            return c;
+        }
+    }
+
+    public static class ChunkOptions {
+        /** How chunk summary scores combine into the overall score. */
+        public enum Aggregation {
+            /** Highest chunk score: one toxic passage flags the whole text. */
+            MAX,
+            /** Mean weighted by chunk length. */
+            MEAN
+        }
+
+        /**
+         * Upper bound on a chunk's UTF-8 size (default 5000). The API rejects comments over 20480
+         * bytes; smaller chunks mean more parallelism but less context per score.
+         */
+        public int maxChunkBytes = 5000;
+
+        /** Default MAX. */
+        public Aggregation aggregation = Aggregation.MAX;
+
+        public ChunkOptions maxChunkBytes(int v) { this.maxChunkBytes = v; return this; }
+        public ChunkOptions aggregation(Aggregation v) { this.aggregation = v; return this; }
+    }
+
+    public static class BulkOptions {
+        /** Upper bound on concurrently outstanding requests (default 64). */
+        public int maxInFlight = 64;
+
+        /**
+         * true (default): results come back in input order; a slow item holds back later ones.
+         * false: results are emitted as soon as each call completes, for maximum throughput.
+         */
+        public boolean ordered = true;
+
+        public BulkOptions maxInFlight(int v) { this.maxInFlight = v; return this; }
+        public BulkOptions ordered(boolean v) { this.ordered = v; return this; }
     }
 }
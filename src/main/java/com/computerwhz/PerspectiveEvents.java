@@ -0,0 +1,120 @@
+package com.computerwhz;
+
+import jdk.jfr.*;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Java Flight Recorder events emitted by {@link PerspectiveClient}, under the "Perspective API"
+ * category. Each factory returns null unless a recording has the event enabled, so with JFR off
+ * the client only pays for one {@link EventType#isEnabled()} check per call site.
+ */
+final class PerspectiveEvents {
+
+    private static final EventType ANALYZE = EventType.getEventType(Analyze.class);
+    private static final EventType CACHE_LOOKUP = EventType.getEventType(CacheLookup.class);
+    private static final EventType RETRY = EventType.getEventType(Retry.class);
+    private static final EventType RATE_LIMIT_WAIT = EventType.getEventType(RateLimitWait.class);
+
+    private PerspectiveEvents() {}
+
+    /** Started event for a whole client call, or null if disabled. */
+    static Analyze analyze(String text, int attributeCount) {
+        if (!ANALYZE.isEnabled()) return null;
+        Analyze e = new Analyze();
+        e.textLength = text.length();
+        e.attributeCount = attributeCount;
+        e.begin();
+        return e;
+    }
+
+    /** Started cache lookup event, or null if disabled. */
+    static CacheLookup cacheLookup(String text, int attributeCount) {
+        if (!CACHE_LOOKUP.isEnabled()) return null;
+        CacheLookup e = new CacheLookup();
+        e.textLength = text.length();
+        e.attributeCount = attributeCount;
+        e.begin();
+        return e;
+    }
+
+    /** Commits an instant event for a retry about to be scheduled. */
+    static void retry(int failedAttempt, long delayNanos, Throwable cause) {
+        if (!RETRY.isEnabled()) return;
+        Retry e = new Retry();
+        e.attempt = failedAttempt;
+        e.delay = delayNanos;
+        e.statusCode = statusCode(cause);
+        e.cause = PerspectiveClient.unwrap(cause).getClass().getName();
+        e.commit();
+    }
+
+    /** Started rate-limit wait event, or null if disabled. */
+    static RateLimitWait rateLimitWait(long waitNanos) {
+        if (!RATE_LIMIT_WAIT.isEnabled()) return null;
+        RateLimitWait e = new RateLimitWait();
+        e.requestedWait = waitNanos;
+        e.begin();
+        return e;
+    }
+
+    /** HTTP status for a call outcome: 200 on success, the API status, or 0 without a response. */
+    static int statusCode(Throwable err) {
+        if (err == null) return 200;
+        Throwable t = PerspectiveClient.unwrap(err);
+        return (t instanceof PerspectiveApiException) ? ((PerspectiveApiException) t).getStatusCode() : 0;
+    }
+
+    @Name("com.computerwhz.Analyze")
+    @Label("Perspective Analyze")
+    @Description("One client call, from submission to result, including cache, retries and hedges")
+    @Category("Perspective API")
+    @StackTrace(false)
+    static final class Analyze extends Event {
+        @Label("Text Length") int textLength;
+        @Label("Attribute Count") int attributeCount;
+        @Label("Status Code") @Description("200 on success, HTTP status of the failure, 0 if none") int statusCode;
+        @Label("Cached") boolean cached;
+        @Label("Outcome") @Description("Exception class on failure, empty on success") String outcome;
+
+        /** Ends and commits with the call's result. */
+        void complete(Object value, Throwable err) {
+            end();
+            statusCode = statusCode(err);
+            Throwable t = (err == null) ? null : PerspectiveClient.unwrap(err);
+            outcome = (t == null) ? "" : (t instanceof CancellationException ? "cancelled" : t.getClass().getName());
+            commit();
+        }
+    }
+
+    @Name("com.computerwhz.CacheLookup")
+    @Label("Perspective Cache Lookup")
+    @Category("Perspective API")
+    @StackTrace(false)
+    static final class CacheLookup extends Event {
+        @Label("Text Length") int textLength;
+        @Label("Attribute Count") int attributeCount;
+        @Label("Hit") boolean hit;
+    }
+
+    @Name("com.computerwhz.Retry")
+    @Label("Perspective Retry")
+    @Description("A failed attempt that will be retried after the given delay")
+    @Category("Perspective API")
+    @StackTrace(false)
+    static final class Retry extends Event {
+        @Label("Failed Attempt") int attempt;
+        @Label("Delay") @Timespan(Timespan.NANOSECONDS) long delay;
+        @Label("Status Code") int statusCode;
+        @Label("Cause") String cause;
+    }
+
+    @Name("com.computerwhz.RateLimitWait")
+    @Label("Perspective Rate Limit Wait")
+    @Description("Time spent waiting for a client-side rate-limit permit")
+    @Category("Perspective API")
+    @StackTrace(false)
+    static final class RateLimitWait extends Event {
+        @Label("Requested Wait") @Timespan(Timespan.NANOSECONDS) long requestedWait;
+    }
+}
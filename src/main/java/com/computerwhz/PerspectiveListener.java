@@ -0,0 +1,47 @@
+package com.computerwhz;
+
+/**
+ * Instrumentation hooks for every HTTP request the client sends (each retry and hedge is its own
+ * request; cache hits and coalesced callers send none). Register with
+ * {@link PerspectiveClient.Builder#listener}; feed the values into Micrometer, Prometheus, logs, etc.
+ *
+ * Callbacks run inline on the calling thread or an OkHttp dispatcher thread, so they must be
+ * thread-safe, fast and must not throw. Durations are in nanoseconds. With no listener registered
+ * the client skips all of this: no timestamps, no wrappers, no allocation.
+ */
+public interface PerspectiveListener {
+
+    /** An HTTP request is about to be sent. */
+    default void requestStart() {}
+
+    /**
+     * The request payload has been written to the connection.
+     *
+     * @param nanos time spent serializing and writing the payload
+     * @param bytes payload size
+     */
+    default void requestSerialized(long nanos, long bytes) {}
+
+    /**
+     * Status line and headers received (any status).
+     *
+     * @param nanos time since {@link #requestStart()}, i.e. network plus server time
+     */
+    default void responseHeaders(int statusCode, long nanos) {}
+
+    /**
+     * A successful response body has been read and parsed.
+     *
+     * @param nanos time since {@link #responseHeaders}
+     * @param bytes response body size as received (after transparent decompression)
+     */
+    default void responseParsed(long nanos, long bytes) {}
+
+    /**
+     * The request failed.
+     *
+     * @param statusCode HTTP status, or 0 if no response was received (connection error, timeout, cancellation)
+     * @param nanos      time since {@link #requestStart()}
+     */
+    default void requestFailed(int statusCode, Throwable error, long nanos) {}
+}
@@ -4,20 +4,40 @@ import java.util.*;
 
 /**
  * Immutable result returned by a Perspective API analysis.
- * - Holds the message, languages, and a map of attribute -> score (0..1).
+ * - Holds the message, languages, and attribute -> score (0..1).
  * - Provides typed convenience getters for popular attributes.
  * - Optionally carries span-level annotations (when requested).
+ *
+ * Scores of known {@link Attribute}s live in a primitive array indexed by ordinal with a presence
+ * bitmask; only unknown/experimental attribute names go to an overflow map. A small array of
+ * ordinals remembers the order scores were first put, so {@link #getScores()} keeps insertion order.
  */
 public final class PerspectiveScore {
 
+    private static final Attribute[] ATTRIBUTES = Attribute.values();
+    private static final Map<String, Attribute> BY_NAME = new HashMap<>();
+    static {
+        for (Attribute a : ATTRIBUTES) BY_NAME.put(a.name(), a);
+    }
+
     /** Original text that was analyzed. */
     private final String message;
 
     /** Languages used for the request (ISO codes like "en", "es", ...). */
     private final List<String> languages;
 
-    /** Attribute -> summary score (probability 0..1). */
-    private final Map<String, Double> scores;
+    /** Attribute.ordinal() -> summary score (probability 0..1); valid where the bit in present is set. */
+    private final double[] values;
+    private final long present;
+
+    /** Scores for attribute names not in {@link Attribute} (empty if none). */
+    private final Map<String, Double> extraScores;
+
+    /** Insertion order: an Attribute ordinal, or ATTRIBUTES.length for the next entry of extraScores. */
+    private final byte[] order;
+
+    /** Lazily built view for {@link #getScores()}. */
+    private volatile Map<String, Double> scoresView;
 
     /** Optional per-span annotations. */
     private final List<SpanAnnotation> spanAnnotations;
@@ -28,7 +48,11 @@ public final class PerspectiveScore {
     private PerspectiveScore(Builder b) {
         this.message = Objects.requireNonNull(b.message, "message");
         this.languages = Collections.unmodifiableList(new ArrayList<>(b.languages));
-        this.scores = Collections.unmodifiableMap(new LinkedHashMap<>(b.scores));
+        this.values = b.values.clone();
+        this.present = b.present;
+        this.order = Arrays.copyOf(b.order, b.orderLength);
+        this.extraScores = b.extraScores.isEmpty()
+                ? Collections.emptyMap() : Collections.unmodifiableMap(new LinkedHashMap<>(b.extraScores));
         this.spanAnnotations = Collections.unmodifiableList(new ArrayList<>(b.spanAnnotations));
         this.computedAtEpochMillis = b.computedAtEpochMillis != null ? b.computedAtEpochMillis : System.currentTimeMillis();
     }
@@ -39,7 +63,24 @@ public final class PerspectiveScore {
 
     public List<String> getLanguages() { return languages; }
 
-    public Map<String, Double> getScores() { return scores; }
+    /** All scores by attribute name, in the order they were first put into the builder. */
+    public Map<String, Double> getScores() {
+        Map<String, Double> m = scoresView;
+        if (m == null) {
+            Map<String, Double> all = new LinkedHashMap<>();
+            Iterator<Map.Entry<String, Double>> extras = extraScores.entrySet().iterator();
+            for (byte o : order) {
+                if (o < ATTRIBUTES.length) {
+                    all.put(ATTRIBUTES[o].name(), values[o]);
+                } else {
+                    Map.Entry<String, Double> e = extras.next();
+                    all.put(e.getKey(), e.getValue());
+                }
+            }
+            scoresView = m = Collections.unmodifiableMap(all);
+        }
+        return m;
+    }
 
     public List<SpanAnnotation> getSpanAnnotations() { return spanAnnotations; }
 
@@ -47,13 +88,25 @@ public final class PerspectiveScore {
 
     /** Generic accessor (by attribute name as used by the API). */
     public OptionalDouble scoreOf(String attribute) {
-        Double v = scores.get(attribute);
+        Attribute attr = BY_NAME.get(attribute);
+        if (attr != null) return scoreOf(attr);
+        Double v = extraScores.get(attribute);
         return (v == null) ? OptionalDouble.empty() : OptionalDouble.of(v);
     }
 
     /** Typed accessor using the Attribute enum when available. */
     public OptionalDouble scoreOf(Attribute attr) {
-        return scoreOf(attr.name());
+        return has(attr) ? OptionalDouble.of(values[attr.ordinal()]) : OptionalDouble.empty();
+    }
+
+    /** Whether a score for the attribute is present (it may still be NaN if the API omitted it). */
+    public boolean has(Attribute attr) {
+        return (present & (1L << attr.ordinal())) != 0;
+    }
+
+    /** Primitive accessor: the score, or NaN if absent. No boxing, no hashing. */
+    public double score(Attribute attr) {
+        return has(attr) ? values[attr.ordinal()] : Double.NaN;
     }
 
     // ---------- Convenience getters for common attributes
@@ -69,15 +122,14 @@ public final class PerspectiveScore {
 
     /** Simple helper: is the text "toxic" under your threshold? */
     public boolean isToxic(double threshold) {
-        OptionalDouble t = toxicity();
-        return t.isPresent() && t.getAsDouble() >= threshold;
+        return score(Attribute.TOXICITY) >= threshold; // NaN (absent) compares false
     }
 
     @Override public String toString() {
         return "PerspectiveScore{" +
                 "message.len=" + (message == null ? 0 : message.length()) +
                 ", languages=" + languages +
-                ", scores=" + scores +
+                ", scores=" + getScores() +
                 ", spans=" + spanAnnotations.size() +
                 ", computedAt=" + computedAtEpochMillis +
                 '}';
@@ -90,7 +142,11 @@ public final class PerspectiveScore {
     public static final class Builder {
         private final String message;
         private List<String> languages = new ArrayList<>();
-        private Map<String, Double> scores = new LinkedHashMap<>();
+        private final double[] values = new double[ATTRIBUTES.length];
+        private long present;
+        private final Map<String, Double> extraScores = new LinkedHashMap<>();
+        private byte[] order = new byte[8];
+        private int orderLength;
         private List<SpanAnnotation> spanAnnotations = new ArrayList<>();
         private Long computedAtEpochMillis;
 
@@ -98,18 +154,31 @@ public final class PerspectiveScore {
 
         /** Add/replace a score for an attribute (any name supported by Perspective). */
         public Builder putScore(String attribute, double value) {
-            this.scores.put(attribute, value);
+            Attribute attr = BY_NAME.get(attribute);
+            if (attr != null) return putScore(attr, value);
+            if (this.extraScores.put(Objects.requireNonNull(attribute, "attribute"), value) == null) {
+                appendOrder(ATTRIBUTES.length);
+            }
             return this;
         }
 
         /** Add/replace using the typed enum. */
         public Builder putScore(Attribute attr, double value) {
-            return putScore(attr.name(), value);
+            long bit = 1L << attr.ordinal();
+            if ((this.present & bit) == 0) appendOrder(attr.ordinal());
+            this.values[attr.ordinal()] = value;
+            this.present |= bit;
+            return this;
+        }
+
+        private void appendOrder(int slot) {
+            if (orderLength == order.length) order = Arrays.copyOf(order, orderLength * 2);
+            order[orderLength++] = (byte) slot;
         }
 
         /** Add all scores from a map. */
         public Builder putAllScores(Map<String, Double> m) {
-            this.scores.putAll(m);
+            for (Map.Entry<String, Double> e : m.entrySet()) putScore(e.getKey(), e.getValue());
             return this;
         }
 
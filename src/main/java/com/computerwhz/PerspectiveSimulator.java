@@ -0,0 +1,350 @@
+package com.computerwhz;
+
+import com.google.gson.*;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the comments:analyze endpoint, for load and resilience testing without
+ * spending quota. Point a client at it with
+ * {@code new PerspectiveClient(key, simulator.endpoint(), null, null)}.
+ *
+ * - Latency: drawn per request from a {@link Latency} distribution; responses are scheduled,
+ *   not slept on, so thousands of requests can be outstanding.
+ * - Faults: configurable fraction of 500/503 errors; 429 + Retry-After once the QPS quota is used up.
+ *   Latency and faults for the n-th request are drawn from (seed, n) alone, so with a fixed seed a
+ *   run replays the same outcomes in arrival order whichever worker thread serves each request.
+ * - Scores: deterministic per (text, attribute). With spanAnnotations, every sentence gets a span
+ *   and the summary score is the highest span score.
+ *
+ * Mirrors the real API's request validation closely enough for the client (key required,
+ * text required, at most 20480 bytes, at least one known attribute).
+ */
+public final class PerspectiveSimulator implements AutoCloseable {
+
+    public static final String PATH = "/v1alpha1/comments:analyze";
+
+    /** The real API rejects comments longer than this many bytes. */
+    private static final int MAX_TEXT_BYTES = 20480;
+
+    private final Latency latency;
+    private final double errorRate;
+    private final RateLimiter quota;
+    private final long seed;
+    private final int workerThreads;
+
+    private HttpServer server;
+    private ExecutorService workers;
+    private ScheduledExecutorService scheduler;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong quotaRejections = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+
+    private PerspectiveSimulator(Builder b) {
+        this.latency = b.latency;
+        this.errorRate = b.errorRate;
+        this.quota = (b.quotaPerSecond > 0) ? new RateLimiter(b.quotaPerSecond, b.quotaBurst, true) : null;
+        this.seed = b.seed;
+        this.workerThreads = b.workerThreads;
+    }
+
+    public static Builder builder() { return new Builder(); }
+
+    /** Binds to a free loopback port and starts serving. */
+    public PerspectiveSimulator start() throws IOException {
+        if (server != null) throw new IllegalStateException("already started");
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        workers = Executors.newFixedThreadPool(workerThreads, daemon("perspective-sim-worker"));
+        scheduler = Executors.newSingleThreadScheduledExecutor(daemon("perspective-sim-latency"));
+        server.createContext(PATH, this::handle);
+        server.setExecutor(workers);
+        server.start();
+        return this;
+    }
+
+    /** URL to pass as the client's endpoint. */
+    public String endpoint() {
+        if (server == null) throw new IllegalStateException("not started");
+        return "http://127.0.0.1:" + server.getAddress().getPort() + PATH;
+    }
+
+    @Override public void close() {
+        if (server == null) return;
+        server.stop(0);
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    // ---------- metrics
+
+    public long getRequestCount() { return requests.get(); }
+
+    public long getQuotaRejectionCount() { return quotaRejections.get(); }
+
+    public long getInjectedErrorCount() { return injectedErrors.get(); }
+
+    // ---------- request handling
+
+    private void handle(HttpExchange ex) throws IOException {
+        Random random = randomFor(requests.incrementAndGet());
+        byte[] body;
+        try (InputStream in = ex.getRequestBody()) {
+            body = in.readAllBytes();
+        }
+
+        if (!"POST".equals(ex.getRequestMethod())) {
+            respond(ex, 405, error(405, "Method not allowed", "INVALID_ARGUMENT"), null, 0L);
+            return;
+        }
+        if (queryParameter(ex.getRequestURI(), "key") == null) {
+            respond(ex, 403, error(403, "The request is missing a valid API key.", "PERMISSION_DENIED"), null, 0L);
+            return;
+        }
+
+        long delay = latency.sampleNanos(random);
+        if (quota != null && !quota.tryAcquire()) {
+            quotaRejections.incrementAndGet();
+            respond(ex, 429, error(429, "Quota exceeded for quota metric 'Analysis requests'.", "RESOURCE_EXHAUSTED"),
+                    "1", Math.min(delay, TimeUnit.MILLISECONDS.toNanos(5)));
+            return;
+        }
+        if (errorRate > 0 && random.nextDouble() < errorRate) {
+            injectedErrors.incrementAndGet();
+            boolean unavailable = random.nextBoolean();
+            respond(ex, unavailable ? 503 : 500,
+                    error(unavailable ? 503 : 500, unavailable ? "The service is currently unavailable." : "Internal error encountered.",
+                            unavailable ? "UNAVAILABLE" : "INTERNAL"), null, delay);
+            return;
+        }
+
+        String response;
+        int status = 200;
+        try {
+            response = analyze(JsonParser.parseString(new String(body, StandardCharsets.UTF_8)).getAsJsonObject());
+        } catch (IllegalArgumentException | IllegalStateException | UnsupportedOperationException
+                 | ClassCastException | JsonParseException e) {
+            // wrong JSON types (e.g. "text": null or an object) throw UnsupportedOperationException or ClassCastException
+            status = 400;
+            response = error(400, e.getMessage() == null ? "Invalid JSON payload received." : e.getMessage(), "INVALID_ARGUMENT");
+        }
+        respond(ex, status, response, null, delay);
+    }
+
+    /** Random source for request number {@code n}: SplitMix64 of the seed and n. */
+    private Random randomFor(long n) {
+        long z = seed + n * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return new Random(z ^ (z >>> 31));
+    }
+
+    private static String analyze(JsonObject req) throws IOException {
+        JsonObject comment = req.getAsJsonObject("comment");
+        String text = (comment != null && comment.has("text")) ? comment.get("text").getAsString() : null;
+        if (text == null || text.isEmpty()) throw new IllegalArgumentException("Comment must be non-empty.");
+        if (text.getBytes(StandardCharsets.UTF_8).length > MAX_TEXT_BYTES) {
+            throw new IllegalArgumentException("Comment text too long.");
+        }
+
+        List<Attribute> attrs = new ArrayList<>();
+        JsonObject requested = req.getAsJsonObject("requestedAttributes");
+        if (requested != null) {
+            for (String name : requested.keySet()) {
+                Attribute a = Attribute.fromString(name);
+                if (a == null) throw new IllegalArgumentException("Unknown attribute: " + name);
+                attrs.add(a);
+            }
+        }
+        if (attrs.isEmpty()) throw new IllegalArgumentException("Must request at least one attribute.");
+
+        boolean spans = req.has("spanAnnotations") && req.get("spanAnnotations").getAsBoolean();
+        String language = (req.has("languages") && req.getAsJsonArray("languages").size() > 0)
+                ? req.getAsJsonArray("languages").get(0).getAsString() : "en";
+
+        StringWriter out = new StringWriter();
+        JsonWriter w = new JsonWriter(out);
+        w.beginObject().name("attributeScores").beginObject();
+        for (Attribute a : attrs) {
+            w.name(a.name()).beginObject();
+            double summary;
+            if (spans) {
+                summary = 0;
+                w.name("spanScores").beginArray();
+                for (int[] s : sentences(text)) {
+                    double v = score(text.substring(s[0], s[1]), a);
+                    summary = Math.max(summary, v);
+                    w.beginObject().name("begin").value(s[0]).name("end").value(s[1]);
+                    w.name("score").beginObject().name("value").value(v).name("type").value("PROBABILITY").endObject();
+                    w.endObject();
+                }
+                w.endArray();
+            } else {
+                summary = score(text, a);
+            }
+            w.name("summaryScore").beginObject().name("value").value(summary).name("type").value("PROBABILITY").endObject();
+            w.endObject();
+        }
+        w.endObject();
+        w.name("languages").beginArray().value(language).endArray();
+        w.name("detectedLanguages").beginArray().value(language).endArray();
+        w.endObject();
+        w.flush();
+        return out.toString();
+    }
+
+    /** Deterministic pseudo-score in [0, 1) for a text and attribute. */
+    static double score(String text, Attribute attr) {
+        long h = 1125899906842597L;
+        for (int i = 0; i < text.length(); i++) h = 31 * h + text.charAt(i);
+        h ^= attr.ordinal() * 0x9E3779B97F4A7C15L;
+        h ^= (h >>> 33);
+        h *= 0xff51afd7ed558ccdL;
+        h ^= (h >>> 33);
+        return (h >>> 11) * 0x1.0p-53;
+    }
+
+    /** [begin, end) ranges of sentences, split after . ! ? and newlines. */
+    static List<int[]> sentences(String text) {
+        List<int[]> out = new ArrayList<>();
+        int begin = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '.' || c == '!' || c == '?' || c == '\n') {
+                out.add(new int[]{begin, i + 1});
+                begin = i + 1;
+            }
+        }
+        if (begin < text.length()) out.add(new int[]{begin, text.length()});
+        return out;
+    }
+
+    private static String error(int code, String message, String status) {
+        JsonObject err = new JsonObject();
+        err.addProperty("code", code);
+        err.addProperty("message", message);
+        err.addProperty("status", status);
+        JsonObject root = new JsonObject();
+        root.add("error", err);
+        return root.toString();
+    }
+
+    private void respond(HttpExchange ex, int status, String json, String retryAfter, long delayNanos) {
+        Runnable send = () -> {
+            try {
+                byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+                ex.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+                if (retryAfter != null) ex.getResponseHeaders().set("Retry-After", retryAfter);
+                ex.sendResponseHeaders(status, bytes.length);
+                try (OutputStream os = ex.getResponseBody()) {
+                    os.write(bytes);
+                }
+            } catch (IOException ignored) {
+                // client went away (e.g. cancelled hedge)
+            } finally {
+                ex.close();
+            }
+        };
+        if (delayNanos <= 0) send.run();
+        else scheduler.schedule(() -> workers.execute(send), delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static String queryParameter(URI uri, String name) {
+        String q = uri.getRawQuery();
+        if (q == null) return null;
+        for (String pair : q.split("&")) {
+            int eq = pair.indexOf('=');
+            String k = eq < 0 ? pair : pair.substring(0, eq);
+            if (k.equals(name)) return eq < 0 ? "" : pair.substring(eq + 1);
+        }
+        return null;
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicLong n = new AtomicLong();
+        return r -> {
+            Thread t = new Thread(r, name + "-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    // ---------- latency models
+
+    /** Response-time distribution. */
+    @FunctionalInterface
+    public interface Latency {
+        long sampleNanos(Random random);
+
+        static Latency none() { return r -> 0L; }
+
+        static Latency fixed(Duration d) {
+            long n = d.toNanos();
+            return r -> n;
+        }
+
+        static Latency uniform(Duration min, Duration max) {
+            long lo = min.toNanos(), span = Math.max(0L, max.toNanos() - lo);
+            return r -> lo + (span == 0 ? 0 : (long) (r.nextDouble() * span));
+        }
+
+        /**
+         * Log-normal with the given median and 99th percentile: most requests near the median
+         * with a long tail, which is how remote API latency usually looks.
+         */
+        static Latency logNormal(Duration median, Duration p99) {
+            double mu = Math.log(median.toNanos());
+            double sigma = Math.max(0.0, (Math.log(p99.toNanos()) - mu) / 2.3263478740408408);
+            return r -> (long) Math.exp(mu + sigma * r.nextGaussian());
+        }
+    }
+
+    // ---------- Builder
+
+    public static final class Builder {
+        private Latency latency = Latency.none();
+        private double errorRate;
+        private double quotaPerSecond;
+        private int quotaBurst = 1;
+        private long seed = 42L;
+        private int workerThreads = 8;
+
+        private Builder() {}
+
+        /** Response-time distribution (default: respond immediately). */
+        public Builder latency(Latency v) { this.latency = Objects.requireNonNull(v, "latency"); return this; }
+
+        /** Fraction of requests (0..1) answered with 500 or 503. */
+        public Builder errorRate(double v) {
+            if (!(v >= 0 && v <= 1)) throw new IllegalArgumentException("errorRate must be in [0, 1]");
+            this.errorRate = v;
+            return this;
+        }
+
+        /** QPS quota; requests over it get 429 with Retry-After (default: unlimited). */
+        public Builder quota(double perSecond, int burst) {
+            this.quotaPerSecond = perSecond;
+            this.quotaBurst = burst;
+            return this;
+        }
+
+        /** Seed for latency and fault injection; same seed, same outcome for the n-th request. */
+        public Builder seed(long v) { this.seed = v; return this; }
+
+        /** Threads parsing requests and writing responses. */
+        public Builder workerThreads(int v) { this.workerThreads = v; return this; }
+
+        public PerspectiveSimulator build() { return new PerspectiveSimulator(this); }
+    }
+}
@@ -0,0 +1,148 @@
+package com.computerwhz;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local screen in front of the API for texts whose outcome is obvious, so they cost no quota
+ * (register with {@link PerspectiveClient.Builder#preFilter}). Rules, first match wins:
+ *
+ * 1. {@link Decision#ANALYZE}: text contains a watch-list term; always sent to the API.
+ * 2. {@link Decision#TOXIC}: text contains a lexicon term (whole words, case-insensitive); answered
+ *    with {@code lexiconScores} if they cover every requested attribute, otherwise sent to the API.
+ * 3. {@link Decision#CLEAN}: text has no letters at all (emoji, punctuation, digits, whitespace),
+ *    or is a single word and {@code skipSingleWords} is on; answered with 0 for every attribute.
+ * 4. Otherwise {@link Decision#PASS}: sent to the API.
+ *
+ * Both lexicons are compiled into one Aho-Corasick automaton each, so a check is a single pass
+ * over the text however many terms there are. Thread-safe.
+ */
+public final class PreFilter {
+
+    public enum Decision {
+        /** Answered locally with zero scores. */
+        CLEAN,
+        /** Answered locally with the lexicon scores. */
+        TOXIC,
+        /** Forced to the API by the watch list. */
+        ANALYZE,
+        /** No rule applied. */
+        PASS
+    }
+
+    private final AhoCorasick lexicon;
+    private final AhoCorasick watchList;
+    private final Map<Attribute, Double> lexiconScores;
+    private final boolean skipSingleWords;
+
+    private final LongAdder clean = new LongAdder();
+    private final LongAdder toxic = new LongAdder();
+    private final LongAdder forced = new LongAdder();
+    private final LongAdder passed = new LongAdder();
+
+    private PreFilter(Builder b) {
+        this.lexicon = b.lexicon.isEmpty() ? null : new AhoCorasick(b.lexicon);
+        this.watchList = b.watchList.isEmpty() ? null : new AhoCorasick(b.watchList);
+        this.lexiconScores = Collections.unmodifiableMap(new EnumMap<>(b.lexiconScores));
+        this.skipSingleWords = b.skipSingleWords;
+    }
+
+    public static Builder builder() { return new Builder(); }
+
+    /** Which rule applies to {@code text}; does not touch the counters. */
+    public Decision evaluate(String text) {
+        if (watchList != null && watchList.matches(text, true)) return Decision.ANALYZE;
+        if (lexicon != null && lexicon.matches(text, true)) return Decision.TOXIC;
+        int words = 0;
+        boolean inWord = false;
+        for (int i = 0; i < text.length(); ) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+            boolean letter = Character.isLetter(cp);
+            if (letter && !inWord && ++words > 1) return Decision.PASS;
+            if (!letter && Character.isWhitespace(cp)) inWord = false;
+            else if (letter) inWord = true;
+        }
+        if (words == 0 || skipSingleWords) return Decision.CLEAN;
+        return Decision.PASS;
+    }
+
+    /**
+     * Synthetic score for {@code text}, or null if it must go to the API. Updates the counters.
+     */
+    PerspectiveScore apply(String text, List<Attribute> attributes, String language) {
+        Decision d = evaluate(text);
+        if (d == Decision.TOXIC && !lexiconScores.keySet().containsAll(attributes)) d = Decision.PASS;
+        switch (d) {
+            case CLEAN:
+                clean.increment();
+                return synthetic(text, attributes, language, null);
+            case TOXIC:
+                toxic.increment();
+                return synthetic(text, attributes, language, lexiconScores);
+            case ANALYZE:
+                forced.increment();
+                return null;
+            default:
+                passed.increment();
+                return null;
+        }
+    }
+
+    private static PerspectiveScore synthetic(String text, List<Attribute> attributes, String language,
+                                              Map<Attribute, Double> scores) {
+        PerspectiveScore.Builder b = PerspectiveScore.builder(text)
+                .languages(Collections.singletonList(language == null ? "en" : language));
+        for (Attribute a : attributes) b.putScore(a, scores == null ? 0.0 : scores.get(a));
+        return b.build();
+    }
+
+    // ---------- metrics
+
+    /** API calls avoided: texts answered locally. */
+    public long getSavedCalls() { return clean.sum() + toxic.sum(); }
+
+    public long getCleanCount() { return clean.sum(); }
+
+    public long getToxicCount() { return toxic.sum(); }
+
+    /** Texts forced to the API by the watch list. */
+    public long getForcedCount() { return forced.sum(); }
+
+    /** Texts no rule applied to (including lexicon hits whose scores did not cover the request). */
+    public long getPassedCount() { return passed.sum(); }
+
+    // ---------- Builder
+
+    public static final class Builder {
+        private final Set<String> lexicon = new LinkedHashSet<>();
+        private final Set<String> watchList = new LinkedHashSet<>();
+        private final Map<Attribute, Double> lexiconScores = new EnumMap<>(Attribute.class);
+        private boolean skipSingleWords;
+
+        private Builder() {
+            lexiconScores.put(Attribute.TOXICITY, 0.99);
+        }
+
+        /** Terms (slurs etc.) whose presence makes a text toxic without asking the API. */
+        public Builder lexicon(Collection<String> terms) { this.lexicon.addAll(terms); return this; }
+
+        /** Terms that always send a text to the API, overriding every other rule. */
+        public Builder watchList(Collection<String> terms) { this.watchList.addAll(terms); return this; }
+
+        /**
+         * Scores reported for lexicon hits (default TOXICITY = 0.99). A request for an attribute
+         * missing here goes to the API even on a hit.
+         */
+        public Builder lexiconScore(Attribute attr, double score) {
+            if (!(score >= 0 && score <= 1)) throw new IllegalArgumentException("score must be in [0, 1]");
+            this.lexiconScores.put(attr, score);
+            return this;
+        }
+
+        /** Treat single-word texts not in the lexicon as clean (default false: single insults exist). */
+        public Builder skipSingleWords(boolean v) { this.skipSingleWords = v; return this; }
+
+        public PreFilter build() { return new PreFilter(this); }
+    }
+}
@@ -0,0 +1,109 @@
+package com.computerwhz;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Precompiled request template for a fixed attribute list and {@link PerspectiveClient.AnalyzeOptions}.
+ *
+ * Everything except the comment text is serialized once: the payload bytes before and after the
+ * text, and the resolved request URL. Each call only writes the JSON-escaped text between them.
+ * Obtain one from {@link PerspectiveClient#prepare}; instances are immutable and thread-safe.
+ */
+public final class PreparedAnalysis {
+
+    private final PerspectiveClient client;
+    private final List<Attribute> attributes;
+    private final PerspectiveClient.AnalyzeOptions options;
+    private final Gson gson;
+    private final HttpUrl url;
+
+    /** Payload up to the opening quote of comment.text / from its closing quote to the end. */
+    private final byte[] prefix;
+    private final byte[] suffix;
+
+    /** @param client the client that runs analyze(); null for a template used only for {@link #newRequest} */
+    PreparedAnalysis(PerspectiveClient client, Gson gson, HttpUrl url, List<Attribute> attributes,
+                     PerspectiveClient.AnalyzeOptions options) {
+        if (attributes == null || attributes.isEmpty()) {
+            throw new IllegalArgumentException("at least one attribute is required");
+        }
+        this.client = client;
+        this.gson = gson;
+        this.url = url;
+        this.attributes = Collections.unmodifiableList(new ArrayList<>(attributes));
+        this.options = (options == null) ? new PerspectiveClient.AnalyzeOptions() : options.copy();
+
+        // Serialize with an empty text and split around it: the first "" in the payload is comment.text.
+        StringWriter template = new StringWriter();
+        try {
+            JsonWriter w = gson.newJsonWriter(template);
+            new AnalyzeRequestBody(gson, "", this.attributes, this.options).write(w);
+            w.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // StringWriter does not throw
+        }
+        String json = template.toString();
+        int at = json.indexOf("\"\"");
+        this.prefix = json.substring(0, at).getBytes(StandardCharsets.UTF_8);
+        this.suffix = json.substring(at + 2).getBytes(StandardCharsets.UTF_8);
+    }
+
+    public List<Attribute> getAttributes() { return attributes; }
+
+    /** Blocking analysis of one text with the prepared attributes and options. */
+    public PerspectiveScore analyze(String text) throws IOException {
+        return PerspectiveClient.await(client.submit(text, attributes, options, this, true));
+    }
+
+    /** Non-blocking analysis of one text with the prepared attributes and options. */
+    public CompletableFuture<PerspectiveScore> analyzeAsync(String text) {
+        return client.submit(text, attributes, options, this, false);
+    }
+
+    Request newRequest(String text) {
+        return new Request.Builder().url(url).post(new Body(text)).build();
+    }
+
+    private final class Body extends RequestBody {
+        private final String text;
+        private long length = -1L;
+
+        Body(String text) { this.text = text; }
+
+        @Override public MediaType contentType() { return AnalyzeRequestBody.JSON; }
+
+        @Override public synchronized long contentLength() throws IOException {
+            if (length < 0) {
+                AnalyzeRequestBody.Utf8Counter counter = new AnalyzeRequestBody.Utf8Counter();
+                JsonWriter w = gson.newJsonWriter(counter);
+                w.value(text);
+                w.flush();
+                length = prefix.length + counter.count() + suffix.length;
+            }
+            return length;
+        }
+
+        @Override public void writeTo(BufferedSink sink) throws IOException {
+            sink.write(prefix);
+            Writer out = new OutputStreamWriter(sink.outputStream(), StandardCharsets.UTF_8);
+            JsonWriter w = gson.newJsonWriter(out);
+            w.value(text); // a lone string value: just the quoted, escaped text
+            w.flush();
+            sink.write(suffix);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.computerwhz;
+
+import java.io.IOException;
+
+/** Thrown by a fail-fast {@link RateLimiter} when the client-side quota is exhausted; no request was sent. */
+public class RateLimitExceededException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public RateLimitExceededException(double permitsPerSecond) {
+        super("Client-side rate limit exceeded (" + permitsPerSecond + " requests/s)");
+    }
+
+    public RateLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,114 @@
+package com.computerwhz;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket for client-side QPS limiting.
+ *
+ * Implemented as GCRA (generic cell rate algorithm): the whole bucket state is a single
+ * "theoretical arrival time" updated by CAS, which is equivalent to a token bucket refilled
+ * at {@code permitsPerSecond} holding at most {@code burst} tokens. The bucket starts full.
+ */
+public final class RateLimiter {
+
+    private final double permitsPerSecond;
+    private final int burst;
+    private final boolean failFast;
+
+    /** Nanos between permits at the steady rate. */
+    private final long intervalNanos;
+    /** How far ahead of "now" the arrival time may run before callers have to wait. */
+    private final long toleranceNanos;
+
+    /** Theoretical arrival time (System.nanoTime() base) of the next permit. */
+    private final AtomicLong tat;
+
+    /**
+     * @param permitsPerSecond steady-state rate, e.g. the project's QPS quota
+     * @param burst            permits that may be taken back-to-back after an idle period (>= 1)
+     * @param failFast         true: reject when no permit is available; false: wait for one
+     */
+    public RateLimiter(double permitsPerSecond, int burst, boolean failFast) {
+        if (!(permitsPerSecond > 0) || Double.isInfinite(permitsPerSecond)) {
+            throw new IllegalArgumentException("permitsPerSecond must be > 0");
+        }
+        if (burst < 1) throw new IllegalArgumentException("burst must be >= 1");
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.failFast = failFast;
+        this.intervalNanos = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.toleranceNanos = intervalNanos * burst;
+        this.tat = new AtomicLong(System.nanoTime());
+    }
+
+    /** Blocking limiter with a burst of one second's worth of permits. */
+    public static RateLimiter perSecond(double permitsPerSecond) {
+        return new RateLimiter(permitsPerSecond, Math.max(1, (int) permitsPerSecond), false);
+    }
+
+    public double getPermitsPerSecond() { return permitsPerSecond; }
+
+    public int getBurst() { return burst; }
+
+    public boolean isFailFast() { return failFast; }
+
+    /** Takes a permit if one is available right now. */
+    public boolean tryAcquire() {
+        return take(false) == 0L;
+    }
+
+    /** Takes a permit, sleeping until it becomes available. */
+    public void acquire() throws InterruptedException {
+        long wait = reserve();
+        if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+    }
+
+    /**
+     * Reserves the next permit without waiting for it.
+     *
+     * @return nanos the caller must wait before using the permit (0 if usable now)
+     */
+    public long reserve() {
+        return take(true);
+    }
+
+    /** Nanos until a permit would be available, without taking one (0 if available now). */
+    long waitNanos() {
+        return Math.max(0L, tat.get() + intervalNanos - toleranceNanos - System.nanoTime());
+    }
+
+    /**
+     * Permit acquisition as configured: {@link #reserve()} when waiting is allowed,
+     * otherwise {@link #tryAcquire()} mapped to an exception.
+     *
+     * @return nanos to wait before sending
+     */
+    long acquireOrReject() throws RateLimitExceededException {
+        if (!failFast) return reserve();
+        if (!tryAcquire()) throw new RateLimitExceededException(permitsPerSecond);
+        return 0L;
+    }
+
+    /** Gives back a permit taken by {@link #acquireOrReject()} for a request that was never sent. */
+    void refund() {
+        tat.addAndGet(-intervalNanos);
+    }
+
+    /** @return nanos to wait, 0 if immediate, or -1 if {@code !reserve} and nothing is available */
+    private long take(boolean reserve) {
+        while (true) {
+            long now = System.nanoTime();
+            long current = tat.get();
+            long base = (current - now > 0) ? current : now;
+            long next = base + intervalNanos;
+            long wait = next - now - toleranceNanos;
+            if (wait > 0 && !reserve) return -1L;
+            if (tat.compareAndSet(current, next)) return Math.max(0L, wait);
+        }
+    }
+
+    @Override public String toString() {
+        return "RateLimiter{" + permitsPerSecond + "/s, burst=" + burst + (failFast ? ", failFast" : "") + '}';
+    }
+}
@@ -0,0 +1,59 @@
+package com.computerwhz;
+
+import java.util.*;
+
+/**
+ * Identity of an analyze request, used to recognise repeats.
+ * {@link #forScore} ignores options that cannot change the result (for caching);
+ * {@link #exact} also includes doNotStore, clientToken and sessionId (for sharing an in-flight call).
+ */
+final class RequestKey {
+
+    final String text;
+    final int attributes;
+    final String language;
+    final boolean spans;
+    final String communityId;
+    final List<String> context;
+    final Boolean doNotStore;
+    final String clientToken;
+    final String sessionId;
+    private final int hash;
+
+    private RequestKey(String text, List<Attribute> attributes, PerspectiveClient.AnalyzeOptions options, boolean exact) {
+        int mask = 0;
+        for (Attribute a : attributes) mask |= 1 << a.ordinal();
+        this.text = text;
+        this.attributes = mask;
+        this.language = (options.language == null || options.language.isEmpty()) ? "en" : options.language;
+        this.spans = Boolean.TRUE.equals(options.spanAnnotations);
+        this.communityId = options.communityId;
+        this.context = (options.context == null || options.context.isEmpty())
+                ? Collections.emptyList() : new ArrayList<>(options.context);
+        this.doNotStore = exact ? options.doNotStore : null;
+        this.clientToken = exact ? options.clientToken : null;
+        this.sessionId = exact ? options.sessionId : null;
+        this.hash = Objects.hash(text, mask, language, spans, communityId, context, doNotStore, clientToken, sessionId);
+    }
+
+    static RequestKey forScore(String text, List<Attribute> attributes, PerspectiveClient.AnalyzeOptions options) {
+        return new RequestKey(text, attributes, options, false);
+    }
+
+    static RequestKey exact(String text, List<Attribute> attributes, PerspectiveClient.AnalyzeOptions options) {
+        return new RequestKey(text, attributes, options, true);
+    }
+
+    @Override public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RequestKey)) return false;
+        RequestKey k = (RequestKey) o;
+        return hash == k.hash && attributes == k.attributes && spans == k.spans &&
+                text.equals(k.text) && language.equals(k.language) &&
+                Objects.equals(communityId, k.communityId) && context.equals(k.context) &&
+                Objects.equals(doNotStore, k.doNotStore) && Objects.equals(clientToken, k.clientToken) &&
+                Objects.equals(sessionId, k.sessionId);
+    }
+
+    @Override public int hashCode() { return hash; }
+}
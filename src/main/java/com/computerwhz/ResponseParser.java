@@ -0,0 +1,164 @@
+package com.computerwhz;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+
+/**
+ * Streaming parser for comments:analyze responses. Pulls summaryScore and spanScores values of
+ * the requested attributes straight off the wire; everything else is skipped without being
+ * materialized (no body String, no JsonObject tree).
+ *
+ * Response shape:
+ * <pre>
+ * {"attributeScores": {"TOXICITY": {"summaryScore": {"value": 0.9, ...},
+ *                                   "spanScores": [{"begin": 0, "end": 9, "score": {"value": 0.9}}]}}, ...}
+ * </pre>
+ */
+final class ResponseParser {
+
+    private static final Attribute[] ATTRIBUTES = Attribute.values();
+
+    private ResponseParser() {}
+
+    /**
+     * @param body           response body (consumed, not closed)
+     * @param requestedAttrs attributes to extract; requested-but-missing attributes score NaN
+     */
+    static PerspectiveScore parse(String text, String languageOrNull, Reader body,
+                                  List<Attribute> requestedAttrs) throws IOException {
+        double[] values = new double[ATTRIBUTES.length];
+        Arrays.fill(values, Double.NaN);
+        boolean[] requested = new boolean[ATTRIBUTES.length];
+        for (Attribute a : requestedAttrs) requested[a.ordinal()] = true;
+        List<PerspectiveScore.SpanAnnotation> spans = new ArrayList<>();
+
+        if (body != null) {
+            JsonReader r = new JsonReader(body);
+            r.beginObject();
+            while (r.hasNext()) {
+                if ("attributeScores".equals(r.nextName()) && r.peek() == JsonToken.BEGIN_OBJECT) {
+                    readAttributeScores(r, requested, values, spans);
+                } else {
+                    r.skipValue();
+                }
+            }
+            r.endObject();
+        }
+
+        PerspectiveScore.Builder b = PerspectiveScore.builder(text)
+                .languages(Collections.singletonList(languageOrNull == null || languageOrNull.isEmpty() ? "en" : languageOrNull))
+                .addAllSpans(spans);
+        for (Attribute attr : requestedAttrs) b.putScore(attr, values[attr.ordinal()]);
+        return b.build();
+    }
+
+    /** Summary score of a single attribute, skipping everything else (spans included); NaN if absent. */
+    static double summaryScore(Reader body, Attribute attribute) throws IOException {
+        double v = Double.NaN;
+        JsonReader r = new JsonReader(body);
+        r.beginObject();
+        while (r.hasNext()) {
+            if (!"attributeScores".equals(r.nextName()) || r.peek() != JsonToken.BEGIN_OBJECT) {
+                r.skipValue();
+                continue;
+            }
+            r.beginObject();
+            while (r.hasNext()) {
+                if (!attribute.name().equals(r.nextName()) || r.peek() != JsonToken.BEGIN_OBJECT) {
+                    r.skipValue();
+                    continue;
+                }
+                r.beginObject();
+                while (r.hasNext()) {
+                    if ("summaryScore".equals(r.nextName())) v = readScoreValue(r);
+                    else r.skipValue();
+                }
+                r.endObject();
+            }
+            r.endObject();
+        }
+        r.endObject();
+        return v;
+    }
+
+    private static void readAttributeScores(JsonReader r, boolean[] requested, double[] values,
+                                            List<PerspectiveScore.SpanAnnotation> spans) throws IOException {
+        r.beginObject();
+        while (r.hasNext()) {
+            String name = r.nextName();
+            Attribute attr = Attribute.fromString(name);
+            if (attr == null || !requested[attr.ordinal()] || r.peek() != JsonToken.BEGIN_OBJECT) {
+                r.skipValue();
+                continue;
+            }
+            r.beginObject();
+            while (r.hasNext()) {
+                String field = r.nextName();
+                if ("summaryScore".equals(field)) {
+                    values[attr.ordinal()] = readScoreValue(r);
+                } else if ("spanScores".equals(field) && r.peek() == JsonToken.BEGIN_ARRAY) {
+                    readSpans(r, attr.name(), spans);
+                } else {
+                    r.skipValue();
+                }
+            }
+            r.endObject();
+        }
+        r.endObject();
+    }
+
+    private static void readSpans(JsonReader r, String attribute,
+                                  List<PerspectiveScore.SpanAnnotation> spans) throws IOException {
+        r.beginArray();
+        while (r.hasNext()) {
+            if (r.peek() != JsonToken.BEGIN_OBJECT) {
+                r.skipValue();
+                continue;
+            }
+            int begin = -1, end = -1;
+            double score = Double.NaN;
+            r.beginObject();
+            while (r.hasNext()) {
+                switch (r.nextName()) {
+                    case "begin": begin = readInt(r); break;
+                    case "end":   end = readInt(r); break;
+                    case "score": score = readScoreValue(r); break;
+                    default:      r.skipValue();
+                }
+            }
+            r.endObject();
+            if (begin >= 0 && end >= begin && !Double.isNaN(score)) {
+                spans.add(new PerspectiveScore.SpanAnnotation(begin, end, attribute, score));
+            }
+        }
+        r.endArray();
+    }
+
+    /** Reads {"value": x, ...}; NaN if absent or not a number. */
+    static double readScoreValue(JsonReader r) throws IOException {
+        if (r.peek() != JsonToken.BEGIN_OBJECT) {
+            r.skipValue();
+            return Double.NaN;
+        }
+        double v = Double.NaN;
+        r.beginObject();
+        while (r.hasNext()) {
+            if ("value".equals(r.nextName()) && r.peek() == JsonToken.NUMBER) v = r.nextDouble();
+            else r.skipValue();
+        }
+        r.endObject();
+        return v;
+    }
+
+    private static int readInt(JsonReader r) throws IOException {
+        if (r.peek() != JsonToken.NUMBER) {
+            r.skipValue();
+            return -1;
+        }
+        return r.nextInt();
+    }
+}
@@ -0,0 +1,146 @@
+package com.computerwhz;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Immutable retry configuration for {@link PerspectiveClient}.
+ *
+ * - Retries transport failures and the configured HTTP status codes (default 429, 500, 502, 503, 504).
+ * - Backoff uses "decorrelated jitter": each delay is random in [baseDelay, 3 x previous delay],
+ *   capped at maxDelay, which spreads out clients that failed at the same moment.
+ * - A Retry-After header on the error response overrides the computed delay, still capped at maxDelay.
+ * - No retry is scheduled if it would start after the per-call deadline.
+ */
+public final class RetryPolicy {
+
+    private final int maxAttempts;
+    private final Duration baseDelay;
+    private final Duration maxDelay;
+    private final Duration deadline;
+    private final Set<Integer> retryableStatusCodes;
+    private final boolean retryOnTransportError;
+    private final boolean respectRetryAfter;
+
+    private RetryPolicy(Builder b) {
+        if (b.maxAttempts < 1) throw new IllegalArgumentException("maxAttempts must be >= 1");
+        if (b.baseDelay.isNegative() || b.maxDelay.compareTo(b.baseDelay) < 0) {
+            throw new IllegalArgumentException("require 0 <= baseDelay <= maxDelay");
+        }
+        this.maxAttempts = b.maxAttempts;
+        this.baseDelay = b.baseDelay;
+        this.maxDelay = b.maxDelay;
+        this.deadline = b.deadline;
+        this.retryableStatusCodes = Collections.unmodifiableSet(new LinkedHashSet<>(b.retryableStatusCodes));
+        this.retryOnTransportError = b.retryOnTransportError;
+        this.respectRetryAfter = b.respectRetryAfter;
+    }
+
+    /** Defaults: 4 attempts, 100ms..10s backoff, 30s deadline. */
+    public static RetryPolicy defaults() { return builder().build(); }
+
+    public static Builder builder() { return new Builder(); }
+
+    // ---------- Accessors
+
+    public int getMaxAttempts() { return maxAttempts; }
+
+    public Duration getBaseDelay() { return baseDelay; }
+
+    /** Upper bound on any single delay, including one asked for by Retry-After. */
+    public Duration getMaxDelay() { return maxDelay; }
+
+    /** Total time budget per call, measured from the first attempt (null = unbounded). */
+    public Duration getDeadline() { return deadline; }
+
+    public Set<Integer> getRetryableStatusCodes() { return retryableStatusCodes; }
+
+    /** Whether the failure is worth another attempt at all, ignoring attempt count and deadline. */
+    public boolean isRetryable(Throwable failure) {
+        Throwable t = PerspectiveClient.unwrap(failure);
+        if (t instanceof PerspectiveApiException) {
+            return retryableStatusCodes.contains(((PerspectiveApiException) t).getStatusCode());
+        }
+        if (t instanceof RateLimitExceededException || t instanceof CircuitOpenException) return false;
+        if (t instanceof InterruptedIOException) {
+            // OkHttp's callTimeout; a plain interrupt means the caller gave up
+            return retryOnTransportError && "timeout".equals(t.getMessage());
+        }
+        return retryOnTransportError && t instanceof IOException;
+    }
+
+    /**
+     * Decides whether and when to retry.
+     *
+     * @param attempt        number of attempts made so far (1 after the first failure)
+     * @param prevDelayNanos delay before the previous retry (0 before the first retry)
+     * @param failure        what the last attempt failed with
+     * @param elapsedNanos   time since the first attempt started
+     * @return nanos to wait before the next attempt, or -1 to give up
+     */
+    long nextDelayNanos(int attempt, long prevDelayNanos, Throwable failure, long elapsedNanos) {
+        if (attempt >= maxAttempts || !isRetryable(failure)) return -1L;
+
+        long delay;
+        Throwable t = PerspectiveClient.unwrap(failure);
+        Duration retryAfter = (t instanceof PerspectiveApiException)
+                ? ((PerspectiveApiException) t).getRetryAfter() : null;
+        if (respectRetryAfter && retryAfter != null) {
+            delay = Math.min(retryAfter.toNanos(), maxDelay.toNanos());
+        } else {
+            long base = baseDelay.toNanos();
+            long upper = Math.max(base, Math.min(maxDelay.toNanos(), 3 * Math.max(prevDelayNanos, base)));
+            delay = (upper > base) ? ThreadLocalRandom.current().nextLong(base, upper + 1) : base;
+        }
+
+        if (deadline != null && elapsedNanos + delay >= deadline.toNanos()) return -1L;
+        return delay;
+    }
+
+    @Override public String toString() {
+        return "RetryPolicy{maxAttempts=" + maxAttempts + ", delay=" + baseDelay + ".." + maxDelay +
+                ", deadline=" + deadline + ", statusCodes=" + retryableStatusCodes + '}';
+    }
+
+    // ---------- Builder
+
+    public static final class Builder {
+        private int maxAttempts = 4;
+        private Duration baseDelay = Duration.ofMillis(100);
+        private Duration maxDelay = Duration.ofSeconds(10);
+        private Duration deadline = Duration.ofSeconds(30);
+        private Set<Integer> retryableStatusCodes = new LinkedHashSet<>(Arrays.asList(429, 500, 502, 503, 504));
+        private boolean retryOnTransportError = true;
+        private boolean respectRetryAfter = true;
+
+        private Builder() {}
+
+        /** Total attempts including the first one (1 disables retries). */
+        public Builder maxAttempts(int v) { this.maxAttempts = v; return this; }
+
+        public Builder baseDelay(Duration v) { this.baseDelay = Objects.requireNonNull(v, "baseDelay"); return this; }
+
+        /** Upper bound on any single delay; a longer Retry-After is cut down to it (default 10s). */
+        public Builder maxDelay(Duration v) { this.maxDelay = Objects.requireNonNull(v, "maxDelay"); return this; }
+
+        /** Give up once the next attempt would start later than this after the first (null = unbounded). */
+        public Builder deadline(Duration v) { this.deadline = v; return this; }
+
+        /** Replace the set of HTTP status codes that are retried. */
+        public Builder retryableStatusCodes(Collection<Integer> v) {
+            this.retryableStatusCodes = new LinkedHashSet<>(v);
+            return this;
+        }
+
+        /** Retry connection failures and timeouts (default true). */
+        public Builder retryOnTransportError(boolean v) { this.retryOnTransportError = v; return this; }
+
+        /** Wait as long as the server's Retry-After header says, up to maxDelay (default true). */
+        public Builder respectRetryAfter(boolean v) { this.respectRetryAfter = v; return this; }
+
+        public RetryPolicy build() { return new RetryPolicy(this); }
+    }
+}
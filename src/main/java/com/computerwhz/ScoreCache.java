@@ -0,0 +1,199 @@
+package com.computerwhz;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded in-memory cache of {@link PerspectiveScore}s for repeated texts.
+ *
+ * - Keyed on the text plus everything that changes the result: requested attribute set,
+ *   language, span annotations, community id and context. Options that do not affect scores
+ *   (doNotStore, clientToken, sessionId) are ignored.
+ * - Size-bounded with LRU eviction and TinyLFU admission: when full, a new entry only replaces
+ *   the LRU victim if it has been requested more often recently, so one-off texts cannot flush
+ *   popular ones ("lol", "thanks!").
+ * - Entries expire {@code ttl} after being written.
+ *
+ * Lookups are lock-free except for a best-effort recency update that is skipped under contention.
+ */
+public final class ScoreCache {
+
+    private final long maximumSize;
+    private final long ttlNanos;
+
+    private final ConcurrentHashMap<RequestKey, Node> map = new ConcurrentHashMap<>();
+    private final FrequencySketch sketch;
+
+    /** LRU list, head = least recently used (guarded by lock). */
+    private final ReentrantLock lock = new ReentrantLock();
+    private Node head;
+    private Node tail;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
+
+    /**
+     * @param maximumSize maximum number of cached scores
+     * @param ttl         how long a score stays valid after it was fetched
+     */
+    public ScoreCache(long maximumSize, Duration ttl) {
+        if (maximumSize < 1) throw new IllegalArgumentException("maximumSize must be >= 1");
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) throw new IllegalArgumentException("ttl must be > 0");
+        this.maximumSize = maximumSize;
+        this.ttlNanos = ttl.toNanos();
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    // ---------- metrics
+
+    public long size() { return map.size(); }
+
+    public long getHitCount() { return hits.get(); }
+
+    public long getMissCount() { return misses.get(); }
+
+    public long getEvictionCount() { return evictions.get(); }
+
+    /** New entries not admitted because the LRU victim was more popular. */
+    public long getRejectionCount() { return rejections.get(); }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            map.clear();
+            head = tail = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---------- lookups
+
+    /** Cached score, or null if absent or expired. */
+    public PerspectiveScore get(String text, List<Attribute> attributes, PerspectiveClient.AnalyzeOptions options) {
+        return get(RequestKey.forScore(text, attributes, options));
+    }
+
+    PerspectiveScore get(RequestKey key) {
+        sketch.increment(key.hashCode());
+        Node n = map.get(key);
+        if (n == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (System.nanoTime() - n.expiresAtNanos >= 0) {
+            remove(n);
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        if (lock.tryLock()) {
+            try {
+                if (n.linked) moveToTail(n);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return n.score;
+    }
+
+    public void put(String text, List<Attribute> attributes, PerspectiveClient.AnalyzeOptions options,
+                    PerspectiveScore score) {
+        put(RequestKey.forScore(text, attributes, options), score);
+    }
+
+    void put(RequestKey key, PerspectiveScore score) {
+        Objects.requireNonNull(score, "score");
+        long expiresAt = System.nanoTime() + ttlNanos;
+        lock.lock();
+        try {
+            Node existing = map.get(key);
+            if (existing != null) {
+                existing.score = score;
+                existing.expiresAtNanos = expiresAt;
+                if (existing.linked) moveToTail(existing);
+                return;
+            }
+            purgeExpiredHead();
+            if (map.size() >= maximumSize) {
+                Node victim = head;
+                if (sketch.frequency(key.hashCode()) <= sketch.frequency(victim.key.hashCode())) {
+                    rejections.incrementAndGet();
+                    return;
+                }
+                unlink(victim);
+                map.remove(victim.key, victim);
+                evictions.incrementAndGet();
+            }
+            Node n = new Node(key, score, expiresAt);
+            map.put(key, n);
+            linkLast(n);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void remove(Node n) {
+        lock.lock();
+        try {
+            if (map.remove(n.key, n) && n.linked) unlink(n);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void purgeExpiredHead() {
+        long now = System.nanoTime();
+        while (head != null && now - head.expiresAtNanos >= 0) {
+            Node n = head;
+            unlink(n);
+            map.remove(n.key, n);
+        }
+    }
+
+    // ---------- LRU list (caller holds lock)
+
+    private void linkLast(Node n) {
+        n.prev = tail;
+        n.next = null;
+        if (tail == null) head = n;
+        else tail.next = n;
+        tail = n;
+        n.linked = true;
+    }
+
+    private void unlink(Node n) {
+        if (n.prev == null) head = n.next;
+        else n.prev.next = n.next;
+        if (n.next == null) tail = n.prev;
+        else n.next.prev = n.prev;
+        n.prev = n.next = null;
+        n.linked = false;
+    }
+
+    private void moveToTail(Node n) {
+        if (n == tail) return;
+        unlink(n);
+        linkLast(n);
+    }
+
+    private static final class Node {
+        final RequestKey key;
+        volatile PerspectiveScore score;
+        volatile long expiresAtNanos;
+        Node prev;
+        Node next;
+        boolean linked;
+
+        Node(RequestKey key, PerspectiveScore score, long expiresAtNanos) {
+            this.key = key;
+            this.score = score;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.computerwhz;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical requests onto one call whose result fans out to every waiter.
+ * Each waiter gets its own future: cancelling it detaches that waiter only, and the shared call
+ * is cancelled once no waiter is left.
+ */
+final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, Flight> flights = new ConcurrentHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /** Waiters that were served by another caller's call. */
+    long getCoalescedCount() { return coalesced.get(); }
+
+    /**
+     * Joins the in-flight call for {@code key}, or starts one with {@code call}.
+     * If {@code call} throws, nothing is registered and the exception propagates.
+     */
+    CompletableFuture<V> join(K key, Supplier<CompletableFuture<V>> call) {
+        while (true) {
+            Flight f = flights.get(key);
+            if (f != null) {
+                if (f.tryJoin()) {
+                    coalesced.incrementAndGet();
+                    return f.waiter();
+                }
+                flights.remove(key, f); // abandoned by all waiters, start afresh
+                continue;
+            }
+
+            Flight mine = new Flight();
+            if (flights.putIfAbsent(key, mine) != null) continue;
+            mine.tryJoin();
+            CompletableFuture<V> waiter = mine.waiter();
+            CompletableFuture<V> shared;
+            try {
+                shared = call.get();
+            } catch (RuntimeException | Error e) {
+                flights.remove(key, mine);
+                mine.promise.completeExceptionally(e);
+                throw e;
+            }
+            mine.attach(key, shared);
+            return waiter;
+        }
+    }
+
+    private final class Flight {
+        final CompletableFuture<V> promise = new CompletableFuture<>();
+        private final AtomicInteger waiters = new AtomicInteger();
+        private volatile CompletableFuture<V> shared;
+
+        /** Fails once every waiter has left, so the flight cannot be revived. */
+        boolean tryJoin() {
+            while (true) {
+                int n = waiters.get();
+                if (n < 0 || (n == 0 && shared != null)) return false;
+                if (waiters.compareAndSet(n, n + 1)) return true;
+            }
+        }
+
+        CompletableFuture<V> waiter() {
+            CompletableFuture<V> w = new CompletableFuture<>();
+            promise.whenComplete((v, err) -> {
+                if (err == null) w.complete(v);
+                else w.completeExceptionally(err);
+            });
+            w.whenComplete((v, err) -> {
+                if (w.isCancelled() && waiters.decrementAndGet() == 0 && waiters.compareAndSet(0, -1)) {
+                    CompletableFuture<V> s = shared;
+                    if (s != null) s.cancel(true);
+                }
+            });
+            return w;
+        }
+
+        void attach(K key, CompletableFuture<V> s) {
+            shared = s;
+            s.whenComplete((v, err) -> {
+                flights.remove(key, this);
+                if (err == null) promise.complete(v);
+                else promise.completeExceptionally(err);
+            });
+            if (waiters.get() < 0) s.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.computerwhz;
+
+import java.util.*;
+
+/** Splits long comments into API-sized chunks and merges the chunk scores back into one result. */
+final class TextChunker {
+
+    private TextChunker() {}
+
+    /**
+     * Contiguous [begin, end) ranges covering {@code text}, each at most {@code maxBytes} of UTF-8.
+     * Cuts after a sentence end (. ! ? followed by whitespace, or a newline) when one lies in the
+     * second half of the chunk, else after the last whitespace, else at a code point boundary.
+     */
+    static List<int[]> split(String text, int maxBytes) {
+        List<int[]> ranges = new ArrayList<>();
+        int n = text.length();
+        int start = 0;
+        while (start < n) {
+            int bytes = 0, i = start, sentenceCut = -1, spaceCut = -1;
+            while (i < n) {
+                int cp = text.codePointAt(i);
+                int len = utf8Length(cp);
+                if (bytes + len > maxBytes) break;
+                bytes += len;
+                int prev = i - 1;
+                i += Character.charCount(cp);
+                if (Character.isWhitespace(cp)) {
+                    spaceCut = i;
+                    char p = (prev >= start) ? text.charAt(prev) : 0;
+                    if (cp == '\n' || p == '.' || p == '!' || p == '?') sentenceCut = i;
+                }
+            }
+            int end;
+            if (i >= n) end = n;
+            else if (sentenceCut > start && sentenceCut - start >= (i - start) / 2) end = sentenceCut;
+            else if (spaceCut > start) end = spaceCut;
+            else end = i;
+            ranges.add(new int[]{start, end});
+            start = end;
+        }
+        return ranges;
+    }
+
+    /**
+     * One score for the whole text: summary scores aggregated over chunks (MEAN is weighted by
+     * chunk length), spans shifted by each chunk's offset into {@code text}.
+     */
+    static PerspectiveScore merge(String text, List<int[]> ranges, List<PerspectiveScore> parts,
+                                  PerspectiveClient.ChunkOptions.Aggregation aggregation) {
+        Map<String, double[]> acc = new LinkedHashMap<>(); // name -> {max, weighted sum, weight}
+        PerspectiveScore.Builder b = PerspectiveScore.builder(text);
+        for (int i = 0; i < parts.size(); i++) {
+            PerspectiveScore part = parts.get(i);
+            int offset = ranges.get(i)[0];
+            double weight = ranges.get(i)[1] - offset;
+            for (Map.Entry<String, Double> e : part.getScores().entrySet()) {
+                double[] a = acc.computeIfAbsent(e.getKey(), k -> new double[]{Double.NEGATIVE_INFINITY, 0, 0});
+                a[0] = Math.max(a[0], e.getValue());
+                a[1] += e.getValue() * weight;
+                a[2] += weight;
+            }
+            for (PerspectiveScore.SpanAnnotation s : part.getSpanAnnotations()) {
+                b.addSpan(new PerspectiveScore.SpanAnnotation(s.getBegin() + offset, s.getEnd() + offset,
+                        s.getAttribute(), s.getScore()));
+            }
+        }
+        for (Map.Entry<String, double[]> e : acc.entrySet()) {
+            double[] a = e.getValue();
+            b.putScore(e.getKey(), aggregation == PerspectiveClient.ChunkOptions.Aggregation.MAX ? a[0] : a[1] / a[2]);
+        }
+        if (!parts.isEmpty()) b.languages(parts.get(0).getLanguages());
+        return b.build();
+    }
+
+    private static int utf8Length(int cp) {
+        if (cp < 0x80) return 1;
+        if (cp < 0x800) return 2;
+        if (cp < 0x10000) return 3;
+        return 4;
+    }
+}
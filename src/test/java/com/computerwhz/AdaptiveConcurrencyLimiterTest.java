@@ -0,0 +1,99 @@
+package com.computerwhz;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void growsWhileTheLimitIsInUse() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 100, 0.9, 2.0);
+        for (int round = 0; round < 50; round++) {
+            int slots = limiter.getLimit();
+            for (int i = 0; i < slots; i++) assertTrue(limiter.acquire().isDone());
+            for (int i = 0; i < slots; i++) limiter.release(MS, false);
+        }
+        assertTrue(limiter.getLimit() > 4, "limit " + limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void doesNotGrowWhileIdle() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 1, 100, 0.9, 2.0);
+        for (int i = 0; i < 500; i++) {
+            limiter.acquire();
+            limiter.release(MS, false);
+        }
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    void overloadBacksOffOncePerRoundTrip() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 1, 100, 0.9, 2.0);
+        limiter.acquire();
+        limiter.release(TimeUnit.SECONDS.toNanos(1), false); // minimum RTT 1s: one decrease per second
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire();
+            limiter.release(TimeUnit.SECONDS.toNanos(1), true);
+        }
+        assertEquals(18, limiter.getLimit());
+    }
+
+    @Test
+    void latencyAboveToleranceBacksOff() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 1, 100, 0.5, 2.0);
+        limiter.acquire();
+        limiter.release(MS, false);
+        limiter.acquire();
+        limiter.release(3 * MS, false);
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void neverDropsBelowMinLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 3, 100, 0.5, 2.0);
+        limiter.acquire();
+        limiter.release(MS, true);
+        assertEquals(3, limiter.getLimit());
+    }
+
+    @Test
+    void minRttIsRemeasuredPeriodically() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 1, 100, 0.9, 2.0);
+        limiter.acquire();
+        limiter.release(MS, false);
+        for (int i = 1; i < 999; i++) {
+            limiter.acquire();
+            limiter.release(10 * MS, false);
+        }
+        assertEquals(MS, limiter.getMinRttNanos());
+        limiter.acquire();
+        limiter.release(10 * MS, false); // 1000th sample starts a new window
+        assertEquals(10 * MS, limiter.getMinRttNanos());
+    }
+
+    @Test
+    void waitersAreGrantedInOrderAndCancelledOnesSkipped() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 0.9, 2.0);
+        assertTrue(limiter.acquire().isDone());
+        CompletableFuture<Void> second = limiter.acquire();
+        CompletableFuture<Void> third = limiter.acquire();
+        CompletableFuture<Void> fourth = limiter.acquire();
+        assertEquals(3, limiter.getQueued());
+
+        second.cancel(false);
+        limiter.release();
+        assertTrue(third.isDone());
+        assertFalse(fourth.isDone());
+        assertEquals(1, limiter.getInFlight());
+
+        limiter.release();
+        assertTrue(fourth.isDone());
+    }
+}
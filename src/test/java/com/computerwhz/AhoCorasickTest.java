@@ -0,0 +1,57 @@
+package com.computerwhz;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AhoCorasickTest {
+
+    @Test
+    void findsAnyTermCaseInsensitively() {
+        AhoCorasick ac = new AhoCorasick(List.of("idiot", "Moron"));
+        assertTrue(ac.matches("you IDIOT", false));
+        assertTrue(ac.matches("what a moron.", false));
+        assertFalse(ac.matches("a perfectly nice comment", false));
+    }
+
+    @Test
+    void wholeWordsRejectMatchesInsideWords() {
+        AhoCorasick ac = new AhoCorasick(List.of("ass"));
+        assertTrue(ac.matches("classic", false));
+        assertFalse(ac.matches("classic", true));
+        assertFalse(ac.matches("ass1", true));
+        assertTrue(ac.matches("ass", true));
+        assertTrue(ac.matches("(ass)!", true));
+        assertTrue(ac.matches("lass, ass", true));
+    }
+
+    @Test
+    void followsFailureLinksAcrossPartialMatches() {
+        AhoCorasick ac = new AhoCorasick(List.of("abcd", "bce"));
+        assertTrue(ac.matches("abce", false));
+        assertFalse(ac.matches("abcx", false));
+    }
+
+    @Test
+    void reportsOverlappingTermsEndingAtTheSamePlace() {
+        AhoCorasick ac = new AhoCorasick(List.of("he", "she", "hers"));
+        assertTrue(ac.matches("ushers", false));
+        assertFalse(ac.matches("ushers", true));
+        assertTrue(ac.matches("u she", true));
+
+        // the longer term is not a whole word here, but a suffix term reached by output link is
+        AhoCorasick phrase = new AhoCorasick(List.of("foo bar", "bar"));
+        assertTrue(phrase.matches("xfoo bar", true));
+        assertFalse(phrase.matches("xfoo barx", true));
+    }
+
+    @Test
+    void ignoresEmptyAndNullTerms() {
+        AhoCorasick ac = new AhoCorasick(Arrays.asList("", null));
+        assertFalse(ac.matches("anything at all", false));
+        assertFalse(new AhoCorasick(List.of()).matches("", false));
+    }
+}
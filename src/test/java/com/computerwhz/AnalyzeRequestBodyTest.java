@@ -0,0 +1,51 @@
+package com.computerwhz;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalyzeRequestBodyTest {
+
+    private static final List<String> TEXTS = List.of(
+            "plain ascii",
+            "héllo wörld",
+            "日本語のコメント",
+            "emoji 😀 pair",
+            "lone high \uD800 and lone low \uDC00",
+            "trailing high \uD800",
+            "quotes \" back\\slash \n\t  <b>&amp;</b>");
+
+    @Test
+    void contentLengthMatchesWrittenBytes() throws Exception {
+        PerspectiveClient.AnalyzeOptions options = new PerspectiveClient.AnalyzeOptions()
+                .spanAnnotations(true).context(List.of("ctx 😀", "é"));
+        for (Gson gson : List.of(new Gson(), new GsonBuilder().disableHtmlEscaping().create())) {
+            for (String text : TEXTS) {
+                AnalyzeRequestBody body = new AnalyzeRequestBody(gson, text,
+                        List.of(Attribute.TOXICITY, Attribute.INSULT), options);
+                Buffer sink = new Buffer();
+                body.writeTo(sink);
+                assertEquals(sink.size(), body.contentLength(), text);
+                assertEquals(body.contentLength(), body.contentLength());
+            }
+        }
+    }
+
+    @Test
+    void preparedBodyContentLengthMatchesWrittenBytes() throws Exception {
+        PreparedAnalysis prepared = PerspectiveClient.builder("test-key").build()
+                .prepare(List.of(Attribute.TOXICITY), new PerspectiveClient.AnalyzeOptions().doNotStore(true));
+        for (String text : TEXTS) {
+            RequestBody body = prepared.newRequest(text).body();
+            Buffer sink = new Buffer();
+            body.writeTo(sink);
+            assertEquals(sink.size(), body.contentLength(), text);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.computerwhz;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApiKeyPoolTest {
+
+    private static PerspectiveApiException status(int code, Duration retryAfter) {
+        return new PerspectiveApiException(code, "HTTP " + code, retryAfter);
+    }
+
+    @Test
+    void picksLeastLoadedKey() throws Exception {
+        ApiKeyPool pool = ApiKeyPool.builder().addKey("key-aaaa").addKey("key-bbbb").build();
+        ApiKeyPool.Lease first = pool.acquire();
+        ApiKeyPool.Lease second = pool.acquire();
+        assertNotEquals(first.apiKey(), second.apiKey());
+        first.release(null);
+        assertEquals(first.apiKey(), pool.acquire().apiKey());
+    }
+
+    @Test
+    void tooManyRequestsDrainsKeyForAtLeastRetryAfter() throws Exception {
+        ApiKeyPool pool = ApiKeyPool.builder().addKey("key-aaaa").addKey("key-bbbb")
+                .overloadDrain(Duration.ofMillis(10)).build();
+        ApiKeyPool.Lease lease = pool.acquire();
+        lease.release(status(429, Duration.ofSeconds(30)));
+
+        ApiKeyPool.Key drained = lease.key;
+        assertTrue(drained.isDrained());
+        assertEquals(1, drained.getRejectionCount());
+        assertEquals(0, drained.getInFlight());
+        assertEquals(1, pool.getHealthyCount());
+        Thread.sleep(50); // past overloadDrain, but not past Retry-After
+        for (int i = 0; i < 5; i++) assertNotSame(drained, pool.acquire().key);
+    }
+
+    @Test
+    void forbiddenDrainsKeyAndOtherErrorsDoNot() throws Exception {
+        ApiKeyPool pool = ApiKeyPool.builder().addKey("key-aaaa").addKey("key-bbbb").build();
+        ApiKeyPool.Lease lease = pool.acquire();
+        lease.release(status(500, null));
+        assertFalse(lease.key.isDrained());
+
+        lease = pool.acquire();
+        lease.release(status(403, null));
+        assertTrue(lease.key.isDrained());
+        assertEquals(1, pool.getHealthyCount());
+    }
+
+    @Test
+    void exhaustedPoolFailsFastUntilADrainEnds() throws Exception {
+        ApiKeyPool pool = ApiKeyPool.builder().addKey("key-aaaa").addKey("key-bbbb")
+                .overloadDrain(Duration.ofMillis(100)).build();
+        pool.acquire().release(status(429, null));
+        pool.acquire().release(status(429, null));
+        assertEquals(0, pool.getHealthyCount());
+        assertThrows(RateLimitExceededException.class, pool::acquire);
+
+        Thread.sleep(150);
+        assertEquals(2, pool.getHealthyCount());
+        assertNotNull(pool.acquire());
+    }
+
+    @Test
+    void exhaustedPoolDoesNotSpendClientRateLimitPermit() throws Exception {
+        ApiKeyPool pool = ApiKeyPool.builder().addKey("key-aaaa").addKey("key-bbbb")
+                .overloadDrain(Duration.ofMillis(100)).build();
+        try (PerspectiveSimulator sim = PerspectiveSimulator.builder().build().start()) {
+            // one permit per second, fail-fast: a lost permit would reject the second call
+            PerspectiveClient client = PerspectiveClient.builder(pool)
+                    .endpoint(sim.endpoint())
+                    .rateLimiter(new RateLimiter(1, 1, true))
+                    .build();
+            pool.acquire().release(status(429, null));
+            pool.acquire().release(status(429, null));
+
+            RateLimitExceededException e = assertThrows(RateLimitExceededException.class,
+                    () -> client.toxicityScore("hello"));
+            assertTrue(e.getMessage().contains("drained"), e.getMessage());
+
+            Thread.sleep(150);
+            double score = client.toxicityScore("hello");
+            assertTrue(score >= 0 && score < 1);
+            assertEquals(1, sim.getRequestCount());
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.computerwhz;
+
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkCheckpointTest {
+
+    @TempDir
+    Path dir;
+
+    private static BulkCheckpoint.Segment segment(long start, long end) {
+        return new BulkCheckpoint.Segment(start, end, start, new long[0], 0);
+    }
+
+    @Test
+    void watermarkAdvancesOnlyOverContiguousDoneRecords() {
+        BulkCheckpoint.Segment s = segment(0, 300);
+        long a = s.issue(100), b = s.issue(200), c = s.issue(300);
+        s.complete(b);
+        s.complete(c);
+        assertEquals(0, s.watermark());
+        s.complete(a);
+        assertEquals(300, s.watermark());
+    }
+
+    @Test
+    void scannedSegmentEndsAtItsEnd() {
+        BulkCheckpoint.Segment s = segment(0, 500);
+        s.complete(s.issue(100));
+        s.scanned();
+        assertEquals(500, s.watermark()); // trailing blank lines are never issued
+    }
+
+    @Test
+    void windowGrowsPastItsInitialSize() {
+        BulkCheckpoint.Segment s = segment(0, 1000);
+        List<Long> seqs = new ArrayList<>();
+        for (int i = 1; i <= 200; i++) seqs.add(s.issue(i));
+        for (int i = 1; i < 200; i++) s.complete(seqs.get(i));
+        assertEquals(0, s.watermark());
+        s.complete(seqs.get(0));
+        assertEquals(200, s.watermark());
+    }
+
+    @Test
+    void saveAndLoadRoundTripsProgress() throws IOException {
+        Path file = dir.resolve("cp.bin");
+        BulkCheckpoint cp = BulkCheckpoint.fresh(file, 1000, 42, List.of(new long[]{0, 500}, new long[]{500, 1000}));
+        BulkCheckpoint.Segment s = cp.segments().get(0);
+        long[] seq = new long[5];
+        for (int i = 0; i < 5; i++) seq[i] = s.issue(100L * (i + 1));
+        s.complete(seq[0]);
+        s.complete(seq[2]);
+        s.complete(seq[4]);
+        cp.save(cp.snapshot(777));
+
+        BulkCheckpoint loaded = BulkCheckpoint.load(file);
+        assertTrue(loaded.matches(1000, 42));
+        assertFalse(loaded.matches(1000, 43));
+        assertEquals(777, loaded.outputLength());
+        BulkCheckpoint.Segment r = loaded.segments().get(0);
+        assertEquals(100, r.watermark());
+        // resuming re-issues from the watermark: records 2 and 4 are done, 1 and 3 are not
+        long r1 = r.issue(200), r2 = r.issue(300), r3 = r.issue(400), r4 = r.issue(500);
+        assertTrue(r1 >= 0);
+        assertEquals(-1, r2);
+        assertTrue(r3 >= 0);
+        assertEquals(-1, r4);
+        assertEquals(500, loaded.segments().get(1).watermark());
+    }
+
+    @Test
+    void snapshotKeepsResumedFlagsOfRecordsNotYetReissued() throws IOException {
+        Path file = dir.resolve("cp.bin");
+        BulkCheckpoint cp = BulkCheckpoint.fresh(file, 400, 1, List.<long[]>of(new long[]{0, 400}));
+        BulkCheckpoint.Segment s = cp.segments().get(0);
+        s.issue(100);
+        s.issue(200);
+        s.complete(s.issue(300));
+        cp.save(cp.snapshot(10));
+
+        BulkCheckpoint resumed = BulkCheckpoint.load(file);
+        resumed.segments().get(0).issue(100); // only the first record re-issued before the next save
+        resumed.save(resumed.snapshot(10));
+
+        BulkCheckpoint again = BulkCheckpoint.load(file);
+        BulkCheckpoint.Segment s2 = again.segments().get(0);
+        assertTrue(s2.issue(100) >= 0);
+        assertTrue(s2.issue(200) >= 0);
+        assertEquals(-1, s2.issue(300));
+    }
+
+    @Test
+    void rejectsForeignOrTruncatedFiles() throws IOException {
+        Path file = dir.resolve("cp.bin");
+        assertNull(BulkCheckpoint.load(file));
+        Files.write(file, "not a checkpoint".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> BulkCheckpoint.load(file));
+
+        BulkCheckpoint cp = BulkCheckpoint.fresh(file, 10, 1, List.<long[]>of(new long[]{0, 10}));
+        byte[] bytes = cp.snapshot(0);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 4));
+        assertThrows(IOException.class, () -> BulkCheckpoint.load(file));
+    }
+
+    @Test
+    void jobResumesAfterCrashWithoutDuplicatesOrGaps() throws Exception {
+        int n = 100;
+        Path input = dir.resolve("in.jsonl"), output = dir.resolve("out.jsonl"), file = dir.resolve("cp.bin");
+        StringBuilder in = new StringBuilder();
+        List<Long> lineEnds = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            in.append("{\"id\":\"").append(i).append("\",\"text\":\"comment number ").append(i).append("\"}\n");
+            lineEnds.add((long) in.length());
+        }
+        Files.write(input, in.toString().getBytes(StandardCharsets.UTF_8));
+
+        // state left by a crashed run: records 0-9, 15 and 20 done and saved, then one more
+        // result written after the last checkpoint
+        BulkCheckpoint cp = BulkCheckpoint.fresh(file, Files.size(input),
+                Files.getLastModifiedTime(input).toMillis(), List.<long[]>of(new long[]{0, Files.size(input)}));
+        BulkCheckpoint.Segment s = cp.segments().get(0);
+        Set<Integer> done = Set.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 15, 20);
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i <= 30; i++) {
+            long seq = s.issue(lineEnds.get(i));
+            if (done.contains(i)) {
+                s.complete(seq);
+                out.append("{\"offset\":0,\"id\":\"").append(i).append("\",\"scores\":{}}\n");
+            }
+        }
+        Files.write(output, out.toString().getBytes(StandardCharsets.UTF_8));
+        cp.save(cp.snapshot(Files.size(output)));
+        Files.write(output, "{\"offset\":0,\"id\":\"25\",\"scores\":{}}\n{\"offs".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        try (PerspectiveSimulator sim = PerspectiveSimulator.builder().build().start()) {
+            PerspectiveClient client = PerspectiveClient.builder("test-key").endpoint(sim.endpoint()).build();
+            BulkJob.Summary summary = BulkJob.builder(client, input, output).checkpoint(file).maxInFlight(8).build().run();
+            assertEquals(2, summary.getAlreadyDone());
+            assertEquals(n - done.size(), summary.getScored());
+            assertEquals(0, summary.getFailed());
+            assertEquals(n - done.size(), sim.getRequestCount());
+
+            assertEveryIdOnce(output, n);
+
+            // a rerun finds everything done
+            BulkJob.Summary rerun = BulkJob.builder(client, input, output).checkpoint(file).build().run();
+            assertEquals(0, rerun.getLines());
+            assertEquals(n - done.size(), sim.getRequestCount());
+            assertEveryIdOnce(output, n);
+        }
+    }
+
+    private static void assertEveryIdOnce(Path output, int n) throws IOException {
+        Map<String, Integer> seen = new HashMap<>();
+        for (String line : Files.readAllLines(output, StandardCharsets.UTF_8)) {
+            String id = JsonParser.parseString(line).getAsJsonObject().get("id").getAsString();
+            seen.merge(id, 1, Integer::sum);
+        }
+        assertEquals(n, seen.size());
+        for (Map.Entry<String, Integer> e : seen.entrySet()) assertEquals(1, e.getValue(), "id " + e.getKey());
+    }
+}
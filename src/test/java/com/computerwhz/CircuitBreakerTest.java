@@ -0,0 +1,151 @@
+package com.computerwhz;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private static final long FAST = Duration.ofMillis(1).toNanos();
+    private static final long SLOW = Duration.ofSeconds(10).toNanos();
+
+    /** Window of 4 (min 4 calls), opens at 50% failures, 30ms open, 2 trial calls. */
+    private static CircuitBreaker breaker() {
+        return CircuitBreaker.builder()
+                .windowSize(4).minimumCalls(4)
+                .failureRateThreshold(0.5).slowCallRateThreshold(0.75)
+                .slowCallDuration(Duration.ofSeconds(5))
+                .openDuration(Duration.ofMillis(30))
+                .halfOpenCalls(2)
+                .build();
+    }
+
+    private static void succeed(CircuitBreaker b, int n) throws CircuitOpenException {
+        for (int i = 0; i < n; i++) b.onSuccess(b.acquirePermission(), FAST);
+    }
+
+    private static void fail(CircuitBreaker b, int n) throws CircuitOpenException {
+        for (int i = 0; i < n; i++) b.onFailure(b.acquirePermission(), FAST);
+    }
+
+    private static CircuitBreaker halfOpen() throws Exception {
+        CircuitBreaker b = breaker();
+        fail(b, 4);
+        Thread.sleep(40);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, b.getState());
+        return b;
+    }
+
+    @Test
+    void staysClosedUntilMinimumCalls() throws Exception {
+        CircuitBreaker b = breaker();
+        fail(b, 3);
+        assertEquals(CircuitBreaker.State.CLOSED, b.getState());
+        assertEquals(-1, b.getFailureRate());
+    }
+
+    @Test
+    void opensOnFailureRateAndRejects() throws Exception {
+        CircuitBreaker b = breaker();
+        succeed(b, 2);
+        fail(b, 2);
+        assertEquals(CircuitBreaker.State.OPEN, b.getState());
+        assertThrows(CircuitOpenException.class, b::acquirePermission);
+    }
+
+    @Test
+    void opensOnSlowCallRate() throws Exception {
+        CircuitBreaker b = breaker();
+        b.onSuccess(b.acquirePermission(), FAST);
+        for (int i = 0; i < 3; i++) b.onSuccess(b.acquirePermission(), SLOW);
+        assertEquals(CircuitBreaker.State.OPEN, b.getState());
+    }
+
+    @Test
+    void windowForgetsOldOutcomes() throws Exception {
+        CircuitBreaker b = breaker();
+        fail(b, 1);
+        succeed(b, 3);
+        assertEquals(0.25, b.getFailureRate());
+        succeed(b, 1); // pushes the failure out
+        assertEquals(0.0, b.getFailureRate());
+    }
+
+    @Test
+    void halfOpenAdmitsOnlyTrialCalls() throws Exception {
+        CircuitBreaker b = halfOpen();
+        b.acquirePermission();
+        b.acquirePermission();
+        CircuitOpenException e = assertThrows(CircuitOpenException.class, b::acquirePermission);
+        assertTrue(e.getMessage().contains("HALF_OPEN"));
+    }
+
+    @Test
+    void successfulTrialsCloseWithFreshWindow() throws Exception {
+        CircuitBreaker b = halfOpen();
+        long t1 = b.acquirePermission(), t2 = b.acquirePermission();
+        b.onSuccess(t1, FAST);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, b.getState());
+        b.onSuccess(t2, FAST);
+        assertEquals(CircuitBreaker.State.CLOSED, b.getState());
+        assertEquals(-1, b.getFailureRate());
+    }
+
+    @Test
+    void failedOrSlowTrialReopens() throws Exception {
+        CircuitBreaker b = halfOpen();
+        b.onFailure(b.acquirePermission(), FAST);
+        assertEquals(CircuitBreaker.State.OPEN, b.getState());
+
+        Thread.sleep(40);
+        b.onSuccess(b.acquirePermission(), SLOW);
+        assertEquals(CircuitBreaker.State.OPEN, b.getState());
+    }
+
+    @Test
+    void ignoredTrialFreesItsPermit() throws Exception {
+        CircuitBreaker b = halfOpen();
+        long t1 = b.acquirePermission();
+        b.acquirePermission();
+        b.onIgnored(t1);
+        assertDoesNotThrow(b::acquirePermission);
+        assertThrows(CircuitOpenException.class, b::acquirePermission);
+    }
+
+    @Test
+    void callsAdmittedWhileClosedDoNotCountAsTrials() throws Exception {
+        CircuitBreaker b = breaker();
+        long staleSuccess = b.acquirePermission();
+        long staleFailure = b.acquirePermission();
+        long staleIgnored = b.acquirePermission();
+        fail(b, 4);
+        Thread.sleep(40);
+
+        long trial = b.acquirePermission();
+        b.onSuccess(staleSuccess, FAST);
+        b.onSuccess(trial, FAST);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, b.getState(), "stale success counted as a trial");
+
+        b.onFailure(staleFailure, FAST);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, b.getState(), "stale failure re-opened the breaker");
+
+        b.acquirePermission(); // second and last trial permit
+        b.onIgnored(staleIgnored);
+        assertThrows(CircuitOpenException.class, b::acquirePermission, "stale call released a trial permit");
+    }
+
+    @Test
+    void trialsFromAnEarlierHalfOpenPhaseAreIgnored() throws Exception {
+        CircuitBreaker b = halfOpen();
+        long oldTrial = b.acquirePermission();
+        b.onFailure(b.acquirePermission(), FAST); // re-open
+        Thread.sleep(40);
+
+        long trial = b.acquirePermission();
+        b.onSuccess(oldTrial, FAST);
+        b.onSuccess(trial, FAST);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, b.getState());
+    }
+}
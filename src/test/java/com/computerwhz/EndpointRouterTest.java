@@ -0,0 +1,143 @@
+package com.computerwhz;
+
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EndpointRouterTest {
+
+    private static final long MS = Duration.ofMillis(1).toNanos();
+
+    /** A loopback URL nothing listens on. */
+    private static String refusedEndpoint() throws IOException {
+        try (ServerSocket s = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            return "http://127.0.0.1:" + s.getLocalPort() + PerspectiveSimulator.PATH;
+        }
+    }
+
+    @Test
+    void refusedConnectionFailsOverToAnotherEndpoint() throws Exception {
+        try (PerspectiveSimulator sim = PerspectiveSimulator.builder().build().start()) {
+            EndpointRouter router = EndpointRouter.builder()
+                    .addEndpoint(refusedEndpoint()).addEndpoint(sim.endpoint()).build();
+            EndpointRouter.Endpoint dead = router.getEndpoints().get(0);
+            PerspectiveClient client = PerspectiveClient.builder("test-key").router(router).build();
+
+            for (int i = 0; i < 50 && dead.getRequestCount() == 0; i++) client.toxicityScore("hello");
+            assertEquals(1, dead.getConnectFailureCount());
+            assertEquals(1, router.getFailoverCount());
+            assertTrue(dead.isDown());
+
+            long before = dead.getRequestCount();
+            for (int i = 0; i < 10; i++) client.toxicityScore("hello");
+            assertEquals(before, dead.getRequestCount(), "a down endpoint was picked");
+        }
+    }
+
+    @Test
+    void givesUpAfterTryingEveryEndpointOnce() throws Exception {
+        EndpointRouter router = EndpointRouter.builder()
+                .addEndpoint(refusedEndpoint()).addEndpoint(refusedEndpoint()).build();
+        PerspectiveClient client = PerspectiveClient.builder("test-key").router(router).build();
+
+        assertThrows(ConnectException.class, () -> client.toxicityScore("hello"));
+        assertEquals(1, router.getFailoverCount());
+        for (EndpointRouter.Endpoint e : router.getEndpoints()) assertEquals(1, e.getRequestCount());
+    }
+
+    @Test
+    void errorResponsesDoNotFailOver() throws Exception {
+        EndpointRouter router = EndpointRouter.builder().addEndpoint("http://a.test/").addEndpoint("http://b.test/").build();
+        PerspectiveApiException serverError = new PerspectiveApiException(500, "HTTP 500");
+        assertFalse(router.failover(serverError, true));
+        assertTrue(router.failover(new ConnectException("refused"), false));
+        assertTrue(router.failover(new SocketTimeoutException("connect timed out"), false));
+        assertFalse(router.failover(new SocketTimeoutException("read timed out"), true));
+        assertEquals(2, router.getFailoverCount());
+    }
+
+    @Test
+    void fastErrorsRaiseLatencyEstimate() {
+        EndpointRouter router = EndpointRouter.builder().addEndpoint("http://a.test/").addEndpoint("http://b.test/").build();
+        EndpointRouter.Endpoint a = router.getEndpoints().get(0), b = router.getEndpoints().get(1);
+
+        assertSame(a, router.pick(b));
+        router.complete(a, 10 * MS, null, true);
+        assertEquals(Duration.ofMillis(10), a.getLatencyEwma());
+
+        assertSame(a, router.pick(b));
+        router.complete(a, MS, new PerspectiveApiException(503, "HTTP 503"), true);
+        assertEquals(Duration.ofMillis(20), a.getLatencyEwma());
+        assertEquals(0, a.getInFlight());
+        assertFalse(a.isDown());
+    }
+
+    @Test
+    void everyEndpointDownPicksTheOneBackFirst() {
+        EndpointRouter router = EndpointRouter.builder().downtime(Duration.ofMinutes(1))
+                .addEndpoint("http://a.test/").addEndpoint("http://b.test/").build();
+        EndpointRouter.Endpoint a = router.getEndpoints().get(0), b = router.getEndpoints().get(1);
+        router.complete(router.pick(b), MS, new ConnectException("refused"), false);
+        router.complete(router.pick(a), MS, new ConnectException("refused"), false);
+        assertTrue(a.isDown() && b.isDown());
+        assertSame(a, router.pick(null));
+    }
+
+    @Test
+    void connectTimeoutFailsOverAndMarksEndpointDown() throws Exception {
+        try (PerspectiveSimulator sim = PerspectiveSimulator.builder().build().start();
+             ServerSocket blackhole = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            List<Socket> backlog = fillBacklog(blackhole);
+            try {
+                EndpointRouter router = EndpointRouter.builder()
+                        .addEndpoint("http://127.0.0.1:" + blackhole.getLocalPort() + PerspectiveSimulator.PATH)
+                        .addEndpoint(sim.endpoint())
+                        .build();
+                EndpointRouter.Endpoint dead = router.getEndpoints().get(0);
+                PerspectiveClient client = PerspectiveClient.builder("test-key")
+                        .router(router)
+                        .http(new OkHttpClient.Builder().connectTimeout(Duration.ofMillis(200)).build())
+                        .build();
+
+                // selection is random: keep going until the blackholed endpoint has been tried
+                for (int i = 0; i < 50 && dead.getRequestCount() == 0; i++) {
+                    double score = client.toxicityScore("hello there");
+                    assertTrue(score >= 0 && score < 1);
+                }
+                assertEquals(1, dead.getRequestCount());
+                assertEquals(1, dead.getConnectFailureCount());
+                assertTrue(dead.isDown());
+                assertEquals(1, router.getFailoverCount());
+            } finally {
+                for (Socket s : backlog) s.close();
+            }
+        }
+    }
+
+    /** Connects to a server that never accepts until its backlog is full; further connects then time out. */
+    private static List<Socket> fillBacklog(ServerSocket server) throws IOException {
+        List<Socket> sockets = new ArrayList<>();
+        while (sockets.size() < 64) {
+            Socket s = new Socket();
+            try {
+                s.connect(server.getLocalSocketAddress(), 200);
+                sockets.add(s);
+            } catch (SocketTimeoutException full) {
+                s.close();
+                return sockets;
+            }
+        }
+        throw new IllegalStateException("backlog never filled");
+    }
+}
@@ -0,0 +1,34 @@
+package com.computerwhz;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerspectiveClientTest {
+
+    private static final List<Attribute> TOXICITY = Collections.singletonList(Attribute.TOXICITY);
+
+    @Test
+    void chunkedSendsOnlyTheNonBlankChunkOfPaddedText() throws Exception {
+        try (PerspectiveSimulator sim = PerspectiveSimulator.builder().build().start()) {
+            PerspectiveClient client = PerspectiveClient.builder("test-key").endpoint(sim.endpoint()).build();
+            String comment = "You are wrong. Totally wrong!";
+            String text = " ".repeat(30_000) + comment; // over the API's 20480-byte limit as a whole
+
+            PerspectiveScore score = client.analyzeChunked(text, TOXICITY,
+                    new PerspectiveClient.AnalyzeOptions().spanAnnotations(true), new PerspectiveClient.ChunkOptions());
+
+            assertEquals(1, sim.getRequestCount());
+            assertEquals(text, score.getMessage());
+            assertTrue(score.has(Attribute.TOXICITY));
+            assertFalse(score.getSpanAnnotations().isEmpty());
+            for (PerspectiveScore.SpanAnnotation s : score.getSpanAnnotations()) {
+                assertTrue(s.getBegin() >= 30_000, "span not shifted: " + s.getBegin());
+                assertTrue(s.getEnd() <= text.length());
+            }
+        }
+    }
+}
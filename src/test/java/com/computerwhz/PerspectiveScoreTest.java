@@ -0,0 +1,39 @@
+package com.computerwhz;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerspectiveScoreTest {
+
+    @Test
+    void scoresKeepInsertionOrderAcrossKnownAndUnknownNames() {
+        PerspectiveScore score = PerspectiveScore.builder("text")
+                .putScore(Attribute.THREAT, 0.1)
+                .putScore("EXPERIMENTAL_X", 0.2)
+                .putScore(Attribute.TOXICITY, 0.3)
+                .putScore("EXPERIMENTAL_A", 0.4)
+                .putScore("THREAT", 0.5) // replacing keeps the original position
+                .build();
+        Map<String, Double> scores = score.getScores();
+        assertEquals(List.of("THREAT", "EXPERIMENTAL_X", "TOXICITY", "EXPERIMENTAL_A"), List.copyOf(scores.keySet()));
+        assertEquals(0.5, scores.get("THREAT"));
+        assertEquals(0.4, score.scoreOf("EXPERIMENTAL_A").getAsDouble());
+    }
+
+    @Test
+    void orderGrowsPastItsInitialCapacity() {
+        PerspectiveScore.Builder b = PerspectiveScore.builder("text");
+        Attribute[] all = Attribute.values();
+        for (int i = all.length - 1; i >= 0; i--) b.putScore(all[i], i);
+        for (int i = 0; i < 10; i++) b.putScore("EXTRA_" + i, i);
+        List<String> keys = List.copyOf(b.build().getScores().keySet());
+        assertEquals(all.length + 10, keys.size());
+        assertEquals(all[all.length - 1].name(), keys.get(0));
+        assertEquals(all[0].name(), keys.get(all.length - 1));
+        assertEquals("EXTRA_9", keys.get(keys.size() - 1));
+    }
+}
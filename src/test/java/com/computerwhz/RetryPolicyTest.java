@@ -0,0 +1,39 @@
+package com.computerwhz;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryPolicyTest {
+
+    private static PerspectiveApiException tooMany(Duration retryAfter) {
+        return new PerspectiveApiException(429, "HTTP 429", retryAfter);
+    }
+
+    @Test
+    void retryAfterIsHonouredUpToMaxDelay() {
+        RetryPolicy policy = RetryPolicy.builder().maxDelay(Duration.ofSeconds(5)).deadline(null).build();
+        assertEquals(Duration.ofSeconds(2).toNanos(), policy.nextDelayNanos(1, 0, tooMany(Duration.ofSeconds(2)), 0));
+        assertEquals(Duration.ofSeconds(5).toNanos(), policy.nextDelayNanos(1, 0, tooMany(Duration.ofHours(1)), 0));
+    }
+
+    @Test
+    void cappedRetryAfterStillRespectsDeadline() {
+        RetryPolicy policy = RetryPolicy.builder().maxDelay(Duration.ofSeconds(5)).deadline(Duration.ofSeconds(4)).build();
+        assertEquals(-1L, policy.nextDelayNanos(1, 0, tooMany(Duration.ofMinutes(1)), 0));
+    }
+
+    @Test
+    void computedBackoffStaysWithinBounds() {
+        RetryPolicy policy = RetryPolicy.builder()
+                .baseDelay(Duration.ofMillis(100)).maxDelay(Duration.ofMillis(500)).deadline(null).build();
+        long prev = 0;
+        for (int i = 0; i < 100; i++) {
+            long d = policy.nextDelayNanos(1, prev, tooMany(null), 0);
+            assertTrue(d >= Duration.ofMillis(100).toNanos() && d <= Duration.ofMillis(500).toNanos(), "delay " + d);
+            prev = d;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.computerwhz;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> flight = new SingleFlight<>();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private CompletableFuture<String> join(String key, CompletableFuture<String> shared) {
+        return flight.join(key, () -> {
+            calls.incrementAndGet();
+            return shared;
+        });
+    }
+
+    @Test
+    void concurrentCallersShareOneCall() throws Exception {
+        CompletableFuture<String> shared = new CompletableFuture<>();
+        CompletableFuture<String> a = join("k", shared);
+        CompletableFuture<String> b = join("k", new CompletableFuture<>());
+        CompletableFuture<String> other = join("other", new CompletableFuture<>());
+
+        assertEquals(2, calls.get());
+        assertEquals(1, flight.getCoalescedCount());
+        assertNotSame(a, b);
+        shared.complete("v");
+        assertEquals("v", a.get());
+        assertEquals("v", b.get());
+        assertFalse(other.isDone());
+    }
+
+    @Test
+    void failureReachesEveryWaiter() {
+        CompletableFuture<String> shared = new CompletableFuture<>();
+        CompletableFuture<String> a = join("k", shared);
+        CompletableFuture<String> b = join("k", shared);
+        shared.completeExceptionally(new IOException("boom"));
+        for (CompletableFuture<String> w : List.of(a, b)) {
+            ExecutionException e = assertThrows(ExecutionException.class, w::get);
+            assertInstanceOf(IOException.class, e.getCause());
+        }
+    }
+
+    @Test
+    void completedCallIsNotReused() {
+        CompletableFuture<String> first = new CompletableFuture<>();
+        join("k", first);
+        first.complete("v");
+        join("k", new CompletableFuture<>());
+        assertEquals(2, calls.get());
+        assertEquals(0, flight.getCoalescedCount());
+    }
+
+    @Test
+    void cancellingOneWaiterDetachesOnlyThatWaiter() throws Exception {
+        CompletableFuture<String> shared = new CompletableFuture<>();
+        CompletableFuture<String> a = join("k", shared);
+        CompletableFuture<String> b = join("k", shared);
+
+        a.cancel(true);
+        assertFalse(shared.isCancelled());
+        shared.complete("v");
+        assertEquals("v", b.get());
+    }
+
+    @Test
+    void lastWaiterLeavingCancelsSharedCall() {
+        CompletableFuture<String> shared = new CompletableFuture<>();
+        CompletableFuture<String> a = join("k", shared);
+        CompletableFuture<String> b = join("k", shared);
+
+        a.cancel(true);
+        b.cancel(true);
+        assertTrue(shared.isCancelled());
+
+        // an abandoned flight is not joined: the next caller starts a new call
+        CompletableFuture<String> fresh = new CompletableFuture<>();
+        CompletableFuture<String> c = join("k", fresh);
+        assertEquals(2, calls.get());
+        fresh.complete("v2");
+        assertEquals("v2", c.join());
+    }
+
+    @Test
+    void throwingCallRegistersNothing() {
+        assertThrows(IllegalStateException.class, () -> flight.join("k", () -> {
+            throw new IllegalStateException("no call");
+        }));
+        CompletableFuture<String> shared = new CompletableFuture<>();
+        join("k", shared);
+        assertEquals(1, calls.get());
+        assertEquals(0, flight.getCoalescedCount());
+    }
+}